@@ -0,0 +1,191 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.benchmark.BenchmarkResult;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.benchmark.Latency;
+import io.gingersnapproject.data.Customer;
+import io.gingersnapproject.kubernetes.PodTimeline;
+import io.gingersnapproject.kubernetes.Waits;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Breaks the cold start of a cache, from the creation of its {@code Cache} to its first fully loaded eager rule, into
+ * phases, repeated {@code -Dgingersnap.benchmark.coldstart.repetitions} times in a new namespace each. The eager rule
+ * is created right after the {@code Cache}, on the customer table seeded with {@code coldstart.rows} rows.
+ * <p>
+ * Every phase ends at a milestone:
+ * <ul>
+ *     <li>{@code operator}: the cache pod is created</li>
+ *     <li>{@code scheduling}: the pod is scheduled</li>
+ *     <li>{@code image_pull}: the last image is pulled, immediate when all images are present on the node</li>
+ *     <li>{@code container_start}: the last container is running</li>
+ *     <li>{@code pod_ready}: the pod is Ready</li>
+ *     <li>{@code cache_ready}: the {@code Cache} is observed Ready</li>
+ *     <li>{@code first_response}: {@code /rules/{rule}} first answers, which when running outside the cluster includes
+ *     forwarding a port to the pod</li>
+ *     <li>{@code eager_load}: the eager rule serves all the rows</li>
+ * </ul>
+ * The milestones up to the Ready pod are the timestamps recorded by the API server for the first pod to be Ready,
+ * the later ones are observed by the test, so the clocks of the test and of the API server are assumed to be
+ * synchronized. Server timestamps have a resolution of one second, so short phases are only accurate in aggregate, and
+ * a phase ending before it started due to this resolution is recorded as 0.
+ */
+@Isolated
+abstract class AbstractColdStartBenchmark extends AbstractTest {
+
+    static final int REPETITIONS = Benchmarks.intProperty("coldstart.repetitions", 20);
+    static final int ROWS = Benchmarks.intProperty("coldstart.rows", 10_000);
+    static final Duration POLL_INTERVAL = Benchmarks.millisProperty("coldstart.poll-interval", 100);
+    static final Duration TIMEOUT = Benchmarks.secondsProperty("coldstart.timeout", 600);
+
+    enum Phase {
+        OPERATOR, SCHEDULING, IMAGE_PULL, CONTAINER_START, POD_READY, CACHE_READY, FIRST_RESPONSE, EAGER_LOAD;
+
+        String id() {
+            return name().toLowerCase();
+        }
+    }
+
+    protected final DataSource.DbType dsType;
+    final Map<Phase, Histogram> phases = new EnumMap<>(Phase.class);
+    final Histogram total = Benchmarks.histogram();
+    final StringBuilder csv = new StringBuilder("repetition,node,images_cached," +
+            Arrays.stream(Phase.values()).map(phase -> phase.id() + "_ms").collect(Collectors.joining(",")) +
+            ",total_ms\n");
+    BenchmarkResult result;
+
+    public AbstractColdStartBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+        for (var phase : Phase.values())
+            phases.put(phase, Benchmarks.histogram());
+    }
+
+    static IntStream repetitions() {
+        return IntStream.rangeClosed(1, REPETITIONS);
+    }
+
+    @ParameterizedTest(name = "repetition {0}")
+    @MethodSource("repetitions")
+    public void benchmark(int repetition) {
+        db.seed(ROWS);
+        // The table also contains the entry added before each test
+        var expectedKeys = ROWS + 1;
+
+        String connSecretName = "db-credential-secret";
+        k8s.resource(db.connectionSecret(connSecretName))
+                .inNamespace(namespace)
+                .create();
+        var cache = k8s.resource(cache(dsType, "cold-cache", connSecretName))
+                .inNamespace(namespace)
+                .create();
+        var ruleName = "cold-rule";
+        var rule = k8s.resource(
+                eagerCacheRule(
+                        ruleName,
+                        cache,
+                        "gingersnap." + Customer.TABLE_NAME,
+                        key -> key.setKeyColumns(Collections.singletonList("id")),
+                        value -> value.setValueColumns(List.of("fullname", "email"))
+                )
+        ).inNamespace(namespace).create();
+
+        cache = Waits.awaitReady(k8s, cache, TIMEOUT);
+        var cacheReady = Instant.now();
+        forwardGingersnapPort();
+        var gingersnap = gingersnap(cache);
+        pollUntil(() -> {
+            try {
+                return gingersnap.isRuleDefined(ruleName);
+            } catch (RuntimeException e) {
+                // Not listening yet
+                return false;
+            }
+        }, POLL_INTERVAL, TIMEOUT);
+        var firstResponse = Instant.now();
+        pollUntil(() -> gingersnap.countKeys(ruleName) >= expectedKeys, POLL_INTERVAL, TIMEOUT);
+        var loaded = Instant.now();
+
+        var timeline = firstReadyPod();
+        var milestones = List.of(timeline.created(), timeline.scheduled(), timeline.pulled(), timeline.started(),
+                timeline.ready(), cacheReady, firstResponse, loaded);
+        var created = Instant.parse(cache.getMetadata().getCreationTimestamp());
+        var durations = new EnumMap<Phase, Long>(Phase.class);
+        var previous = created;
+        for (var phase : Phase.values()) {
+            var milestone = milestones.get(phase.ordinal());
+            durations.put(phase, previous == null || milestone == null ? 0 : Math.max(0, Duration.between(previous, milestone).toMillis()));
+            previous = milestone == null ? previous : milestone;
+        }
+        var totalMillis = Duration.between(created, loaded).toMillis();
+
+        durations.forEach((phase, millis) -> phases.get(phase).recordValue(TimeUnit.MILLISECONDS.toMicros(millis)));
+        total.recordValue(TimeUnit.MILLISECONDS.toMicros(totalMillis));
+        System.out.printf("%s cold start %d on %s%s: %s total=%dms\n", dsType, repetition, timeline.node(),
+                timeline.imagesCached() ? " (images cached)" : "",
+                durations.entrySet().stream().map(e -> e.getKey().id() + "=" + e.getValue() + "ms").collect(Collectors.joining(" ")),
+                totalMillis);
+        csv.append(String.format("%d,%s,%b,%s,%d\n", repetition, timeline.node(), timeline.imagesCached(),
+                durations.values().stream().map(Object::toString).collect(Collectors.joining(",")), totalMillis));
+        Benchmarks.write(getClass().getSimpleName() + ".csv", csv.toString());
+        Benchmarks.write(getClass().getSimpleName() + ".txt", summary());
+
+        // A single result holding a sample of every phase per repetition
+        if (result == null)
+            result = result("cold-start").parameter("rows", ROWS).resource(cache).resource(rule);
+        result.parameter("repetitions", repetition);
+        durations.forEach((phase, millis) -> result.millis(phase.id(), millis));
+        result.millis("total", totalMillis).write();
+    }
+
+    @Override
+    @AfterEach
+    public void afterEach() throws Exception {
+        super.afterEach();
+        // The pods of the previous repetition would otherwise compete with the next one for the node
+        waitForNamespaceDeletion(k8s, namespace);
+    }
+
+    private PodTimeline firstReadyPod() {
+        var pods = readyPods(k8s, namespace, "infinispan");
+        assertThat(pods, not(empty()));
+        return pods.stream()
+                .map(pod -> PodTimeline.of(k8s, pod))
+                .min(Comparator.comparing(PodTimeline::ready))
+                .orElseThrow();
+    }
+
+    private String summary() {
+        var summary = new StringBuilder(String.format("%-16s %8s %10s %10s %10s %10s\n", "phase", "runs", "mean ms",
+                "p50 ms", "p99 ms", "max ms"));
+        for (var phase : Phase.values())
+            summary.append(row(phase.id(), Latency.of(phases.get(phase))));
+        return summary.append(row("total", Latency.of(total))).toString();
+    }
+
+    private static String row(String name, Latency latency) {
+        return String.format("%-16s %8d %10.0f %10.0f %10.0f %10.0f\n", name, latency.count(), latency.mean() / 1000,
+                latency.p50() / 1000.0, latency.p99() / 1000.0, latency.max() / 1000.0);
+    }
+}
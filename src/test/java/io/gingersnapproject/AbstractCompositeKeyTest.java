@@ -0,0 +1,103 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnap_project.v1alpha1.eagercacherulespec.Key;
+import io.gingersnapproject.data.KeyShape;
+import io.gingersnapproject.data.RowWriter;
+import io.gingersnapproject.data.TableSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Looks up the rows of tables keyed on 1 to 4 columns of mixed types, through eager rules in both key formats.
+ */
+abstract class AbstractCompositeKeyTest extends AbstractTest {
+
+    // Ids are split into base 4 digits, so that with 250 rows every key column of every table takes several values
+    static final int KEY_RADIX = 4;
+    static final int ROWS = 250;
+
+    protected final DataSource.DbType dsType;
+    final List<TableSchema> tables = new ArrayList<>();
+
+    public AbstractCompositeKeyTest(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    @AfterEach
+    public void dropTables() {
+        tables.forEach(db::dropTable);
+        tables.clear();
+    }
+
+    @Test
+    public void test() {
+        var types = TableSchema.ColumnType.parse(KeyShape.DEFAULT_TYPES);
+        var shapes = new ArrayList<>(KeyShape.matrix(types, KeyShape.DEFAULT_SEPARATOR));
+        shapes.add(new KeyShape(Key.Format.TEXT, types, ":"));
+
+        String connSecretName = "db-credential-secret";
+        k8s.resource(db.connectionSecret(connSecretName))
+                .inNamespace(namespace)
+                .create();
+        var cache = createAndWaitForCache(cache(dsType, "composite-cache", connSecretName));
+        var gingersnap = gingersnap(cache);
+
+        var values = TableSchema.generate("composite", 2, TableSchema.ColumnType.parse("varchar,int"), 32);
+        var rules = new ArrayList<String>();
+        for (var shape : shapes) {
+            var schema = shape.apply(values).withKeyRadix(KEY_RADIX);
+            for (int column = 0; column < schema.keyColumns().size(); column++) {
+                var c = column;
+                var distinct = LongStream.rangeClosed(1, ROWS)
+                        .mapToObj(id -> schema.keyValues(id)[c])
+                        .distinct()
+                        .count();
+                assertThat(shape + " column " + c, distinct, greaterThan(1L));
+            }
+            tables.add(schema);
+            db.createTable(schema);
+            new RowWriter(schema, db.dataSource()).insert(1, ROWS);
+
+            var ruleName = schema.name().replace('_', '-');
+            rules.add(ruleName);
+            createAndWaitForRule(schema.eagerCacheRule(ruleName, cache, shape.format(), shape.separator()));
+        }
+
+        for (int i = 0; i < shapes.size(); i++) {
+            var shape = shapes.get(i);
+            var schema = tables.get(i);
+            var ruleName = rules.get(i);
+            eventually(() -> gingersnap.countKeys(ruleName) == ROWS);
+
+            if (shape.format() == Key.Format.TEXT) {
+                Set<String> expected = LongStream.rangeClosed(1, ROWS).mapToObj(id -> shape.key(schema, id)).collect(Collectors.toSet());
+                try (var keys = gingersnap.streamKeys(ruleName)) {
+                    assertThat(shape.toString(), keys.collect(Collectors.toSet()), equalTo(expected));
+                }
+            }
+            for (long id = 1; id <= ROWS; id++) {
+                var value = gingersnap.get(ruleName, shape.key(schema, id));
+                assertThat(shape + " " + id, value, containsString("\"" + schema.values(id, 0)[0] + "\""));
+            }
+
+            // Changes are applied to the entry of the composite key of the updated row
+            var key = shape.key(schema, 142);
+            new RowWriter(schema, db.dataSource()).update(142, 1);
+            eventually(() -> {
+                var value = gingersnap.get(ruleName, key);
+                return value != null && value.contains("\"" + TableSchema.marker(1));
+            });
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package io.gingersnapproject;
 
 import io.gingersnap_project.v1alpha1.cachespec.DataSource;
-import io.gingersnap_project.v1alpha1.eagercacherulestatus.Conditions;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.benchmark.PropagationProbe;
 import io.gingersnapproject.data.Customer;
+import io.gingersnapproject.gingersnap.CacheWatcher;
 import io.gingersnapproject.gingersnap.GingersnapClient;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 import static io.gingersnapproject.kubernetes.Util.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -18,54 +21,26 @@ import static org.hamcrest.core.Is.is;
 abstract class AbstractEagerCacheTest extends AbstractTest {
 
     protected final DataSource.DbType dsType;
+    CacheWatcher watcher;
 
     public AbstractEagerCacheTest(DataSource.DbType dsType) {
         this.dsType = dsType;
     }
 
+    @AfterEach
+    public void closeWatcher() {
+        if (watcher != null) watcher.close();
+        watcher = null;
+    }
+
     @Test
     public void test() {
-        String cacheName = "eager-cache";
-        String connSecretName = "db-credential-secret";
-        k8s.resource(db.connectionSecret(connSecretName))
-                .inNamespace(namespace)
-                .create();
-
-        // Create Cache
-        var cache = cache(dsType, cacheName, connSecretName);
-        cache = createAndWaitForCache(cache);
-
         var ruleName = "e2e-rule";
-        var rule = k8s.resource(
-                        eagerCacheRule(
-                                ruleName,
-                                cache,
-                                "gingersnap."+Customer.TABLE_NAME, // TODO abstract per DB
-                                key -> key.setKeyColumns(Collections.singletonList("id")),
-                                value -> value.setValueColumns(List.of("fullname", "email"))
-                        ))
-                .inNamespace(namespace)
-                .create();
-
-        // Wait for Rule to be Ready
-        k8s.resource(rule)
-                .inNamespace(namespace)
-                .waitUntilCondition(r -> {
-                    if (r.getStatus() == null || r.getStatus().getConditions() == null)
-                        return false;
-
-                    var readyCondition = r.getStatus().getConditions().stream().filter(condition -> condition.getType() == Conditions.Type.READY).findFirst();
-                    return readyCondition.isPresent() && readyCondition.get().getStatus() == Conditions.Status.TRUE;
-                }, K8S_RESOURCE_TIMEOUT, TimeUnit.MINUTES);
-
+        var gingersnap = createCacheAndRule("eager-cache", ruleName);
+        watcher = new CacheWatcher(gingersnap, ruleName);
 
         // Assert that existing DB entries are loaded into the Cache
-        var gingersnap = GingersnapClient.of(cache);
-        eventually(() -> gingersnap.isRuleDefined(ruleName));
-        eventually(() -> {
-            var keys = gingersnap.getAllKeys(ruleName).toList();
-            return keys.size() > 0 && !keys.get(0).equals("[]");
-        });
+        eventually(() -> gingersnap.hasKeys(ruleName));
         assertThat(
                 gingersnap.get(ruleName, "1", Customer.class),
                 equalTo(new Customer("Alice", "alice@example.com"))
@@ -79,7 +54,7 @@ abstract class AbstractEagerCacheTest extends AbstractTest {
                         .getResultList(),
                 is(empty())
         );
-        eventually(() -> gingersnap.get(ruleName, "1") == null);
+        watcher.awaitAbsent("1", Duration.ofMinutes(1)).join();
 
         // Add entry to the DB and wait for it to appear in the Cache
         Customer customer = new Customer("Ryan", "ryan@example.com");
@@ -92,10 +67,52 @@ abstract class AbstractEagerCacheTest extends AbstractTest {
         assertThat(dbCustomer, notNullValue());
 
         var key = Long.toString(dbCustomer.getId());
-        eventually(() -> !"".equals(gingersnap.get(ruleName, key)));
+        watcher.awaitPresent(key, Duration.ofMinutes(1)).join();
 
         var c = gingersnap.get(ruleName, key, Customer.class);
         assertThat(c.getFullname(), is(customer.getFullname()));
         assertThat(c.getEmail(), is(customer.getEmail()));
     }
+
+    @Test
+    public void testPropagationLatency() {
+        var ruleName = "e2e-rule";
+        var gingersnap = createCacheAndRule("eager-cache", ruleName);
+        eventually(() -> gingersnap.get(ruleName, "1") != null);
+
+        PropagationProbe.Result result;
+        try (var probe = new PropagationProbe(gingersnap, ruleName, db, PropagationProbe.Options.fromProperties())) {
+            result = probe.run();
+        }
+        System.out.printf("%s propagation latency:\n%s\n", dsType, result);
+        Benchmarks.write(getClass().getSimpleName() + "-propagation.csv", result.toCsv());
+        result("propagation").propagation(result).write();
+
+        result.timeouts().forEach((op, timeouts) -> assertThat(op + " timeouts", timeouts, is(0L)));
+    }
+
+    private GingersnapClient createCacheAndRule(String cacheName, String ruleName) {
+        String connSecretName = "db-credential-secret";
+        k8s.resource(db.connectionSecret(connSecretName))
+                .inNamespace(namespace)
+                .create();
+
+        // Create Cache
+        var cache = cache(dsType, cacheName, connSecretName);
+        cache = createAndWaitForCache(cache);
+
+        createAndWaitForRule(
+                eagerCacheRule(
+                        ruleName,
+                        cache,
+                        "gingersnap."+Customer.TABLE_NAME, // TODO abstract per DB
+                        key -> key.setKeyColumns(Collections.singletonList("id")),
+                        value -> value.setValueColumns(List.of("fullname", "email"))
+                )
+        );
+
+        var gingersnap = gingersnap(cache);
+        eventually(() -> gingersnap.isRuleDefined(ruleName));
+        return gingersnap;
+    }
 }
@@ -0,0 +1,80 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.data.Customer;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures the cost of a full scan of {@code /rules/{rule}} on an eager rule of {@code rows} entries, for each value
+ * of {@code -Dgingersnap.benchmark.scan.rows}. Every scan is repeated {@code scan.repetitions} times once the rule
+ * has loaded the whole table.
+ */
+@Isolated
+abstract class AbstractKeyScanBenchmark extends AbstractTest {
+
+    static final int REPETITIONS = Benchmarks.intProperty("scan.repetitions", 5);
+    static final Duration LOAD_TIMEOUT = Benchmarks.secondsProperty("scan.timeout", 1800);
+
+    protected final DataSource.DbType dsType;
+    final StringBuilder csv = new StringBuilder("rows,run,keys,bytes,first_key_ms,elapsed_ms,keys_per_s,bytes_per_s\n");
+
+    public AbstractKeyScanBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    static LongStream rows() {
+        return LongStream.of(Benchmarks.longsProperty("scan.rows", "10000,100000,1000000"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("rows")
+    public void benchmark(long rows) {
+        db.seed(rows);
+        // The table also contains the entry added before each test
+        var expectedKeys = rows + 1;
+
+        String connSecretName = "db-credential-secret";
+        k8s.resource(db.connectionSecret(connSecretName))
+                .inNamespace(namespace)
+                .create();
+        var cache = createAndWaitForCache(cache(dsType, "scan-cache", connSecretName));
+
+        var ruleName = "scan-rule";
+        var rule = createAndWaitForRule(
+                eagerCacheRule(
+                        ruleName,
+                        cache,
+                        "gingersnap." + Customer.TABLE_NAME,
+                        key -> key.setKeyColumns(Collections.singletonList("id")),
+                        value -> value.setValueColumns(List.of("fullname", "email"))
+                )
+        );
+        var gingersnap = gingersnap(cache);
+        pollUntil(() -> gingersnap.countKeys(ruleName) >= expectedKeys, Duration.ofSeconds(1), LOAD_TIMEOUT);
+
+        var result = result(rows + "-rows").parameter("rows", rows).resource(cache).resource(rule);
+        for (int run = 1; run <= REPETITIONS; run++) {
+            var scan = gingersnap.scanKeys(ruleName);
+            result.millis("time_to_first_key", scan.timeToFirstKey().toMillis())
+                    .throughput("keys_per_second", scan.keysPerSecond());
+            System.out.printf("%s key scan of %d rows, run %d: %s\n", dsType, rows, run, scan);
+            csv.append(String.format("%d,%d,%d,%d,%d,%d,%.0f,%.0f\n", rows, run, scan.keys(), scan.bytes(),
+                    scan.timeToFirstKey().toMillis(), scan.elapsed().toMillis(), scan.keysPerSecond(), scan.bytesPerSecond()));
+            assertThat(scan.keys(), is(expectedKeys));
+        }
+        Benchmarks.write(getClass().getSimpleName() + ".csv", csv.toString());
+        result.write();
+    }
+}
@@ -0,0 +1,119 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.benchmark.Latency;
+import io.gingersnapproject.data.KeyShape;
+import io.gingersnapproject.data.RowWriter;
+import io.gingersnapproject.data.TableSchema;
+import io.gingersnapproject.kubernetes.MetricsScraper;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * Measures how the latency of a lookup and the memory used per entry change with the shape of the key of an eager
+ * rule, for both key formats and the first 1 to N types of {@code -Dgingersnap.benchmark.keys.types}.
+ * <p>
+ * Every shape loads {@code keys.rows} rows in its own cache. The memory per entry is the growth of the cgroup memory
+ * usage of the cache container while the rule loads, divided by the number of rows, so it is only an estimate: it
+ * includes the garbage not collected yet and the growth of the heap. It is left out when the tests are not allowed to
+ * execute commands in pods. The lookup latency is measured over {@code keys.samples} sequential reads of random keys.
+ */
+@Isolated
+abstract class AbstractKeyShapeBenchmark extends AbstractTest {
+
+    static final int ROWS = Benchmarks.intProperty("keys.rows", 100_000);
+    static final int SAMPLES = Benchmarks.intProperty("keys.samples", 10_000);
+    static final Duration SETTLE = Benchmarks.secondsProperty("keys.settle", 10);
+    static final Duration TIMEOUT = Benchmarks.secondsProperty("keys.timeout", 1800);
+    static final String CACHE_CONTAINER = "cache-manager";
+
+    protected final DataSource.DbType dsType;
+    final StringBuilder csv = new StringBuilder("format,key_columns,separator,rows,key_bytes,load_ms,memory_bytes," +
+            "bytes_per_entry," + Latency.CSV_HEADER + "\n");
+
+    public AbstractKeyShapeBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    static Stream<KeyShape> shapes() {
+        return KeyShape.matrix(
+                TableSchema.ColumnType.parse(System.getProperty(Benchmarks.PROPERTY_PREFIX + "keys.types", KeyShape.DEFAULT_TYPES)),
+                System.getProperty(Benchmarks.PROPERTY_PREFIX + "keys.separator", KeyShape.DEFAULT_SEPARATOR)
+        ).stream();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("shapes")
+    public void benchmark(KeyShape shape) throws Exception {
+        var schema = shape.apply(TableSchema.generate("keys", 2, TableSchema.ColumnType.parse("varchar,int"), 32));
+        db.createTable(schema);
+        try {
+            new RowWriter(schema, db.dataSource()).insert(1, ROWS);
+
+            String connSecretName = "db-credential-secret";
+            k8s.resource(db.connectionSecret(connSecretName))
+                    .inNamespace(namespace)
+                    .create();
+            var cache = createAndWaitForCache(cache(dsType, "keys-cache", connSecretName));
+            var gingersnap = gingersnap(cache);
+            var pod = readyPods(k8s, namespace, "infinispan").get(0).getMetadata().getName();
+
+            sleep(SETTLE.toMillis());
+            var before = cacheUsage(pod);
+            var ruleName = "keys-rule";
+            var loadStart = System.nanoTime();
+            var rule = createAndWaitForRule(schema.eagerCacheRule(ruleName, cache, shape.format(), shape.separator()));
+            pollUntil(() -> gingersnap.countKeys(ruleName) >= ROWS, Duration.ofSeconds(1), TIMEOUT);
+            var loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart);
+            sleep(SETTLE.toMillis());
+            var after = cacheUsage(pod);
+            // Empty when the cgroup usage cannot be read, the memory columns are then left blank
+            var memory = before.flatMap(b -> after.map(a -> a.memoryBytes() - b.memoryBytes()));
+
+            var random = new Random(ROWS);
+            var histogram = Benchmarks.histogram();
+            var keyBytes = 0L;
+            for (int i = 0; i < SAMPLES; i++) {
+                var key = shape.key(schema, 1 + random.nextInt(ROWS));
+                keyBytes += key.length();
+                var start = System.nanoTime();
+                var value = gingersnap.get(ruleName, key);
+                histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                assertThat(key, value, notNullValue());
+            }
+
+            var latency = Latency.of(histogram);
+            var memoryCsv = memory.map(bytes -> bytes + "," + bytes / ROWS).orElse(",");
+            System.out.printf("%s key %s: load=%dms memory=%s bytes (%s per entry)\nlookup: %s\n", dsType, shape,
+                    loadMillis, memory.map(String::valueOf).orElse("n/a"),
+                    memory.map(bytes -> String.valueOf(bytes / ROWS)).orElse("n/a"), latency);
+            csv.append(String.format("%s,%d,\"%s\",%d,%d,%d,%s,%s\n", shape.format(), shape.types().size(),
+                    shape.separator(), ROWS, keyBytes / SAMPLES, loadMillis, memoryCsv, latency.toCsv()));
+            Benchmarks.write(getClass().getSimpleName() + ".csv", csv.toString());
+            var result = result(shape.toString()).parameter("rows", ROWS).parameter("samples", SAMPLES)
+                    .resource(cache).resource(rule)
+                    .millis("load", loadMillis)
+                    .latency("get", latency);
+            memory.ifPresent(bytes -> result.metric("bytes_per_entry", "bytes", false, (double) bytes / ROWS));
+            result.write();
+        } finally {
+            db.dropTable(schema);
+        }
+    }
+
+    private Optional<MetricsScraper.CgroupUsage> cacheUsage(String pod) throws Exception {
+        return MetricsScraper.cgroupUsageIfAllowed(k8s, namespace, pod, CACHE_CONTAINER, Duration.ofSeconds(30));
+    }
+}
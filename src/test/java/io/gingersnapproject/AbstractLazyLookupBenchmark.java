@@ -0,0 +1,106 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.benchmark.Latency;
+import io.gingersnapproject.gingersnap.GingersnapClient;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * Compares the latency of the first read of a key through a lazy rule, which is loaded from the database by the rule's
+ * query, with the latency of subsequent reads served from the cache.
+ */
+@Isolated
+abstract class AbstractLazyLookupBenchmark extends AbstractTest {
+
+    static final int ROWS = Benchmarks.intProperty("lazy.rows", 10_000);
+    static final int SAMPLES = Benchmarks.intProperty("lazy.samples", 1_000);
+    static final int WARM_READS = Benchmarks.intProperty("lazy.warm-reads", 5);
+
+    protected final DataSource.DbType dsType;
+
+    public AbstractLazyLookupBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    @Test
+    public void benchmark() {
+        var seed = db.seed(ROWS);
+
+        String connSecretName = "db-credential-secret";
+        k8s.resource(db.connectionSecret(connSecretName))
+                .inNamespace(namespace)
+                .create();
+        var cache = createAndWaitForCache(cache(dsType, "lazy-cache", connSecretName));
+
+        var ruleName = "lazy-rule";
+        var rule = createAndWaitForRule(
+                lazyCacheRule(
+                        ruleName,
+                        cache,
+                        db.select(Set.of("fullname", "email"), "gingersnap.customer", List.of("id"))
+                )
+        );
+        var gingersnap = gingersnap(cache);
+        eventually(() -> gingersnap.isRuleDefined(ruleName));
+
+        // Warm up the connection and the client with a key that is not sampled
+        for (int i = 0; i < 100; i++)
+            gingersnap.get(ruleName, "1");
+
+        var ids = LongStream.rangeClosed(seed.firstId(), seed.lastId()).boxed().collect(Collectors.toCollection(ArrayList::new));
+        Collections.shuffle(ids, new Random(ROWS));
+        var keys = ids.subList(0, Math.min(SAMPLES, ids.size())).stream().map(Object::toString).collect(Collectors.toList());
+
+        var miss = read(gingersnap, ruleName, keys);
+        var hit = Benchmarks.histogram();
+        for (int i = 0; i < WARM_READS; i++)
+            hit.add(read(gingersnap, ruleName, keys));
+
+        var missLatency = Latency.of(miss);
+        var hitLatency = Latency.of(hit);
+        var p50Ratio = (double) missLatency.p50() / Math.max(1, hitLatency.p50());
+        var meanRatio = missLatency.mean() / Math.max(1, hitLatency.mean());
+        System.out.printf("%s lazy lookup:\nmiss: %s\nhit: %s\nmiss/hit p50=%.2f mean=%.2f\n", dsType, missLatency, hitLatency, p50Ratio, meanRatio);
+        Benchmarks.write(getClass().getSimpleName() + ".csv",
+                "lookup," + Latency.CSV_HEADER + "\n" +
+                        "miss," + missLatency.toCsv() + "\n" +
+                        "hit," + hitLatency.toCsv() + "\n");
+        // Dimensionless, so kept out of the latency table
+        Benchmarks.write(getClass().getSimpleName() + "-ratio.csv",
+                String.format("p50_ratio,mean_ratio\n%.2f,%.2f\n", p50Ratio, meanRatio));
+        result("lookup").parameter("rows", ROWS).parameter("samples", SAMPLES).parameter("warm_reads", WARM_READS)
+                .resource(cache).resource(rule)
+                .latency("miss", missLatency)
+                .latency("hit", hitLatency)
+                .metric("miss_hit_ratio.p50", "ratio", false, p50Ratio)
+                .metric("miss_hit_ratio.mean", "ratio", false, meanRatio)
+                .write();
+    }
+
+    private Histogram read(GingersnapClient gingersnap, String rule, List<String> keys) {
+        var histogram = Benchmarks.histogram();
+        for (var key : keys) {
+            var start = System.nanoTime();
+            var value = gingersnap.get(rule, key);
+            histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            assertThat(key, value, notNullValue());
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,86 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.benchmark.KeyDistribution;
+import io.gingersnapproject.benchmark.Latency;
+import io.gingersnapproject.benchmark.ReadLoadGenerator;
+import io.gingersnapproject.data.Customer;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures the read throughput and latency of an eager rule over a seeded table, for each {@link KeyDistribution} of
+ * {@code -Dgingersnap.benchmark.distributions}.
+ */
+@Isolated
+abstract class AbstractReadThroughputBenchmark extends AbstractTest {
+
+    static final long ROWS = Long.getLong(Benchmarks.PROPERTY_PREFIX + "read.rows", 100_000);
+    static final Duration LOAD_TIMEOUT = Benchmarks.secondsProperty("read.timeout", 1800);
+
+    protected final DataSource.DbType dsType;
+    final StringBuilder csv = new StringBuilder("distribution,requests,misses,errors,throughput_req_per_s," + Latency.CSV_HEADER + "\n");
+
+    public AbstractReadThroughputBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    static Stream<KeyDistribution> distributions() {
+        return KeyDistribution.fromProperties().stream();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("distributions")
+    public void benchmark(KeyDistribution distribution) {
+        db.seed(ROWS);
+        // The table also contains the entry added before each test
+        var expectedKeys = ROWS + 1;
+
+        String cacheName = "read-cache";
+        String connSecretName = "db-credential-secret";
+        k8s.resource(db.connectionSecret(connSecretName))
+                .inNamespace(namespace)
+                .create();
+
+        var cache = createAndWaitForCache(cache(dsType, cacheName, connSecretName));
+
+        var ruleName = "read-rule";
+        var rule = createAndWaitForRule(
+                eagerCacheRule(
+                        ruleName,
+                        cache,
+                        "gingersnap." + Customer.TABLE_NAME,
+                        key -> key.setKeyColumns(Collections.singletonList("id")),
+                        value -> value.setValueColumns(List.of("fullname", "email"))
+                )
+        );
+
+        var gingersnap = gingersnap(cache);
+        pollUntil(() -> gingersnap.countKeys(ruleName) >= expectedKeys, Duration.ofSeconds(1), LOAD_TIMEOUT);
+
+        var options = ReadLoadGenerator.Options.fromProperties();
+        var result = new ReadLoadGenerator(gingersnap, ruleName, distribution.keys(1, expectedKeys), options).run();
+        System.out.printf("%s read throughput with %s keys: %s\n", dsType, distribution, result);
+        csv.append(String.format("%s,%d,%d,%d,%.1f,%s\n", distribution, result.requests(), result.misses(), result.errors(),
+                result.throughput(), result.latency().toCsv()));
+        Benchmarks.write(getClass().getSimpleName() + ".csv", csv.toString());
+        result(distribution.toString()).parameter("rows", ROWS).parameter("workers", options.workers())
+                .parameter("duration", options.duration()).resource(cache).resource(rule)
+                .throughput("throughput", result.throughput())
+                .latency("get", result.latency())
+                .write();
+
+        assertThat(result.errors(), is(0L));
+    }
+}
@@ -0,0 +1,120 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.benchmark.KeyDistribution;
+import io.gingersnapproject.benchmark.Latency;
+import io.gingersnapproject.benchmark.PropagationProbe;
+import io.gingersnapproject.benchmark.ReadLoadGenerator;
+import io.gingersnapproject.benchmark.ResourceProfile;
+import io.gingersnapproject.data.Customer;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures eager load throughput, CDC propagation latency and read throughput for each profile of
+ * {@code -Dgingersnap.benchmark.profiles}. Profiles should be listed by increasing resources, the table then reports
+ * the gain of every profile over the previous one, showing where adding CPU or memory stops paying off.
+ */
+@Isolated
+abstract class AbstractResourceProfileBenchmark extends AbstractTest {
+
+    static final long ROWS = Long.getLong(Benchmarks.PROPERTY_PREFIX + "profile.rows", 100_000);
+    static final Duration LOAD_TIMEOUT = Benchmarks.secondsProperty("profile.timeout", 1800);
+
+    protected final DataSource.DbType dsType;
+    final StringBuilder csv = new StringBuilder("profile,cache_cpu,cache_memory,syncer_cpu,syncer_memory,replicas," +
+            "load_rows_per_s,insert_p50_us,insert_p99_us,update_p50_us,update_p99_us,read_req_per_s,read_p50_us,read_p99_us\n");
+    final StringBuilder table = new StringBuilder(String.format("%-10s %-12s %-12s %4s %12s %7s %10s %10s %12s %7s %10s\n",
+            "profile", "cache", "db-syncer", "pods", "load rows/s", "gain", "ins p99ms", "upd p99ms", "read req/s", "gain", "read p99ms"));
+    double previousLoad, previousRead;
+
+    public AbstractResourceProfileBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    static Stream<ResourceProfile> profiles() {
+        return ResourceProfile.fromProperties().stream();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("profiles")
+    public void benchmark(ResourceProfile profile) {
+        db.seed(ROWS);
+        // The table also contains the entry added before each test
+        var expectedKeys = ROWS + 1;
+
+        String connSecretName = "db-credential-secret";
+        k8s.resource(db.connectionSecret(connSecretName))
+                .inNamespace(namespace)
+                .create();
+        var cache = createAndWaitForCache(profile.apply(cache(dsType, "profile-cache", connSecretName)));
+        var gingersnap = gingersnap(cache);
+
+        // Eager load
+        var ruleName = "profile-rule";
+        var start = System.nanoTime();
+        var rule = createAndWaitForRule(
+                eagerCacheRule(
+                        ruleName,
+                        cache,
+                        "gingersnap." + Customer.TABLE_NAME,
+                        key -> key.setKeyColumns(Collections.singletonList("id")),
+                        value -> value.setValueColumns(List.of("fullname", "email"))
+                )
+        );
+        pollUntil(() -> gingersnap.countKeys(ruleName) >= expectedKeys, Duration.ofMillis(500), LOAD_TIMEOUT);
+        var loadRowsPerSecond = expectedKeys * 1e9 / (System.nanoTime() - start);
+
+        // CDC propagation
+        PropagationProbe.Result propagation;
+        try (var probe = new PropagationProbe(gingersnap, ruleName, db, PropagationProbe.Options.fromProperties())) {
+            propagation = probe.run();
+        }
+        var insert = Latency.of(propagation.latencies().get(PropagationProbe.Operation.INSERT));
+        var update = Latency.of(propagation.latencies().get(PropagationProbe.Operation.UPDATE));
+
+        // Reads spread over the seeded keys
+        var reads = new ReadLoadGenerator(gingersnap, ruleName,
+                new KeyDistribution.Sequential().keys(1, expectedKeys),
+                ReadLoadGenerator.Options.fromProperties()).run();
+        var read = reads.latency();
+
+        System.out.printf("%s profile %s: load=%.0frows/s\npropagation:\n%s\nreads: %s\n", dsType, profile, loadRowsPerSecond, propagation, reads);
+        csv.append(String.format("%s,%s,%s,%s,%s,%d,%.0f,%d,%d,%d,%d,%.1f,%d,%d\n", profile, profile.cacheCpu(), profile.cacheMemory(),
+                profile.syncerCpu(), profile.syncerMemory(), profile.replicas(), loadRowsPerSecond, insert.p50(), insert.p99(),
+                update.p50(), update.p99(), reads.throughput(), read.p50(), read.p99()));
+        table.append(String.format("%-10s %-12s %-12s %4s %12.0f %7s %10.1f %10.1f %12.1f %7s %10.1f\n", profile,
+                profile.cacheCpu() + "/" + profile.cacheMemory(), profile.syncerCpu() + "/" + profile.syncerMemory(),
+                profile.replicas() == 0 ? "-" : Integer.toString(profile.replicas()), loadRowsPerSecond, gain(loadRowsPerSecond, previousLoad),
+                insert.p99() / 1000.0, update.p99() / 1000.0, reads.throughput(), gain(reads.throughput(), previousRead), read.p99() / 1000.0));
+        previousLoad = loadRowsPerSecond;
+        previousRead = reads.throughput();
+        Benchmarks.write(getClass().getSimpleName() + ".csv", csv.toString());
+        Benchmarks.write(getClass().getSimpleName() + ".txt", table.toString());
+        System.out.print(table);
+        result(profile.toString()).parameter("rows", ROWS).resource(cache).resource(rule)
+                .throughput("load_rows_per_second", loadRowsPerSecond)
+                .propagation(propagation)
+                .throughput("read_throughput", reads.throughput())
+                .latency("get", read)
+                .write();
+
+        propagation.timeouts().forEach((op, timeouts) -> assertThat(op + " timeouts", timeouts, is(0L)));
+        assertThat(reads.errors(), is(0L));
+    }
+
+    private static String gain(double value, double previous) {
+        return previous == 0 ? "-" : String.format("%+.0f%%", (value / previous - 1) * 100);
+    }
+}
@@ -0,0 +1,88 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.benchmark.Latency;
+import io.gingersnapproject.benchmark.RuleChurnGenerator;
+import io.gingersnapproject.data.RowWriter;
+import io.gingersnapproject.data.TableSchema;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.LongStream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures how fast rule changes are reconciled while rules are constantly created, modified and deleted, as when they
+ * are deployed from CI pipelines, for every rate of {@code -Dgingersnap.benchmark.churn.rates} changes per second.
+ * <p>
+ * Every rate runs a {@link RuleChurnGenerator} in its own cache, on a table of {@code churn.rows} rows, and records the
+ * latency until each kind of change is reflected in the status of the rule and in the responses of the cache, and the
+ * number of changes reflected per second. Changes not reflected in the responses of the cache fail the benchmark,
+ * while changes not reflected in the status are only reported, as the operator may not write the status of a rule
+ * that stays Ready.
+ */
+@Isolated
+abstract class AbstractRuleChurnBenchmark extends AbstractTest {
+
+    static final int ROWS = Benchmarks.intProperty("churn.rows", 100);
+
+    protected final DataSource.DbType dsType;
+    final StringBuilder csv = new StringBuilder();
+
+    public AbstractRuleChurnBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    static LongStream rates() {
+        return LongStream.of(Benchmarks.longsProperty("churn.rates", "1,2,5"));
+    }
+
+    @ParameterizedTest(name = "{0} changes/s")
+    @MethodSource("rates")
+    public void benchmark(long rate) {
+        var schema = TableSchema.generate("churn", 2, TableSchema.ColumnType.parse("varchar,int"), 32);
+        db.createTable(schema);
+        try {
+            new RowWriter(schema, db.dataSource()).insert(1, ROWS);
+
+            String connSecretName = "db-credential-secret";
+            k8s.resource(db.connectionSecret(connSecretName))
+                    .inNamespace(namespace)
+                    .create();
+            var cache = createAndWaitForCache(cache(dsType, "churn-cache", connSecretName));
+            var options = RuleChurnGenerator.Options.fromProperties().withRate((int) rate);
+            var churn = new RuleChurnGenerator(k8s, namespace, cache, schema, db, gingersnap(cache), options).run();
+
+            System.out.printf("%s rule churn:\n%s\n", dsType, churn);
+            var result = result(rate + "-per-second").parameter("rules", options.rules())
+                    .parameter("operations", options.operations()).parameter("rate", rate).parameter("rows", ROWS)
+                    .parameter("skipped", churn.skipped())
+                    .resource(cache)
+                    .throughput("changes_per_second", churn.throughput());
+            for (var op : RuleChurnGenerator.Operation.values()) {
+                var status = churn.status().get(op);
+                var response = churn.responses().get(op);
+                if (status.getTotalCount() > 0)
+                    result.latency(op.name().toLowerCase() + "_status", Latency.of(status));
+                if (response.getTotalCount() > 0)
+                    result.latency(op.name().toLowerCase() + "_response", Latency.of(response));
+            }
+            var lines = churn.toCsv().split("\n");
+            if (csv.length() == 0)
+                csv.append("rate,").append(lines[0]).append('\n');
+            for (int i = 1; i < lines.length; i++)
+                csv.append(rate).append(',').append(lines[i]).append('\n');
+            Benchmarks.write(getClass().getSimpleName() + ".csv", csv.toString());
+            result.write();
+
+            churn.responseTimeouts().forEach((op, timeouts) -> assertThat(op + " response timeouts", timeouts, is(0L)));
+        } finally {
+            db.dropTable(schema);
+        }
+    }
+}
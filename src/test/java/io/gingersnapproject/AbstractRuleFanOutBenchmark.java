@@ -0,0 +1,235 @@
+package io.gingersnapproject;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.gingersnap_project.v1alpha1.EagerCacheRule;
+import io.gingersnap_project.v1alpha1.LazyCacheRule;
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.benchmark.Latency;
+import io.gingersnapproject.data.RowWriter;
+import io.gingersnapproject.data.TableSchema;
+import io.gingersnapproject.kubernetes.MetricsScraper;
+import io.gingersnapproject.kubernetes.Waits;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Measures how a single cache copes with many rules, for every rule count K of
+ * {@code -Dgingersnap.benchmark.fanout.rules}. K tables of {@code fanout.rows} rows are generated, and an eager and a
+ * lazy rule are created on every table, 2K rules in total, as fast as the API server accepts them.
+ * <p>
+ * For every K, the benchmark records:
+ * <ul>
+ *     <li>the time from the creation of each rule until it is first observed Ready, and until all the rules are</li>
+ *     <li>the time until every eager rule loaded its table</li>
+ *     <li>the latency until {@code fanout.updates} updates of rows of random tables are served by their eager rule</li>
+ *     <li>the growth of the cgroup memory usage of the cache and db-syncer containers per rule, which like in
+ *     {@link AbstractKeyShapeBenchmark} is only an estimate, includes the rows loaded by the eager rules and is left
+ *     out when the tests are not allowed to execute commands in pods</li>
+ * </ul>
+ */
+@Isolated
+abstract class AbstractRuleFanOutBenchmark extends AbstractTest {
+
+    static final int ROWS = Benchmarks.intProperty("fanout.rows", 100);
+    static final int UPDATES = Benchmarks.intProperty("fanout.updates", 200);
+    static final Duration SETTLE = Benchmarks.secondsProperty("fanout.settle", 10);
+    static final Duration POLL_INTERVAL = Benchmarks.millisProperty("fanout.poll-interval", 5);
+    static final Duration TIMEOUT = Benchmarks.secondsProperty("fanout.timeout", 1800);
+    static final String CACHE_CONTAINER = "cache-manager";
+    static final String SYNCER_CONTAINER = "db-syncer";
+
+    protected final DataSource.DbType dsType;
+    final StringBuilder csv = new StringBuilder("rules,rows,create_ms,all_ready_ms,load_ms,eager_ready_p50_ms," +
+            "eager_ready_p99_ms,lazy_ready_p50_ms,lazy_ready_p99_ms,cdc_p50_us,cdc_p99_us,cache_bytes_per_rule," +
+            "syncer_bytes_per_rule\n");
+
+    public AbstractRuleFanOutBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    static LongStream ruleCounts() {
+        return LongStream.of(Benchmarks.longsProperty("fanout.rules", "10,50,100,250,500"));
+    }
+
+    @ParameterizedTest(name = "{0} tables")
+    @MethodSource("ruleCounts")
+    public void benchmark(long tables) throws Exception {
+        var schemas = new ArrayList<TableSchema>();
+        for (int i = 0; i < tables; i++)
+            schemas.add(TableSchema.generate("fanout_" + i, 2, TableSchema.ColumnType.parse("varchar,int"), 32));
+        try {
+            for (var schema : schemas) {
+                db.createTable(schema);
+                new RowWriter(schema, db.dataSource()).insert(1, ROWS);
+            }
+
+            String connSecretName = "db-credential-secret";
+            k8s.resource(db.connectionSecret(connSecretName))
+                    .inNamespace(namespace)
+                    .create();
+            var cache = createAndWaitForCache(cache(dsType, "fanout-cache", connSecretName));
+            var gingersnap = gingersnap(cache);
+            var pod = readyPods(k8s, namespace, "infinispan").get(0).getMetadata().getName();
+
+            sleep(SETTLE.toMillis());
+            var cacheBefore = usage(pod, CACHE_CONTAINER);
+            var syncerBefore = usage(pod, SYNCER_CONTAINER);
+
+            // The informers are started first, so that no transition to Ready is missed
+            var created = new ConcurrentHashMap<String, Long>();
+            var eagerReady = new ConcurrentHashMap<String, Long>();
+            var lazyReady = new ConcurrentHashMap<String, Long>();
+            var eagerFuture = recordReady(EagerCacheRule.class, Waits::isReady, eagerReady, schemas.size());
+            var lazyFuture = recordReady(LazyCacheRule.class, Waits::isReady, lazyReady, schemas.size());
+            var start = System.nanoTime();
+            for (var schema : schemas) {
+                var eager = schema.eagerCacheRule(eagerRule(schema), cache);
+                created.put(eager.getMetadata().getName(), System.nanoTime());
+                k8s.resource(eager).inNamespace(namespace).create();
+                var lazy = schema.lazyCacheRule(lazyRule(schema), cache, db);
+                created.put(lazy.getMetadata().getName(), System.nanoTime());
+                k8s.resource(lazy).inNamespace(namespace).create();
+            }
+            var createMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            var satisfied = false;
+            try {
+                CompletableFuture.allOf(eagerFuture, lazyFuture).get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                satisfied = true;
+            } catch (TimeoutException e) {
+                fail(String.format("%d/%d eager and %d/%d lazy rules Ready after %s", eagerReady.size(), tables,
+                        lazyReady.size(), tables, TIMEOUT));
+            } finally {
+                eagerFuture.cancel(true);
+                lazyFuture.cancel(true);
+                Waits.record(2 * tables + " rules Ready", start, satisfied);
+            }
+            var allReadyMillis = TimeUnit.NANOSECONDS.toMillis(
+                    LongStream.concat(eagerReady.values().stream().mapToLong(Long::longValue),
+                            lazyReady.values().stream().mapToLong(Long::longValue)).max().orElse(start) - start);
+
+            var loading = new HashSet<TableSchema>(schemas);
+            pollUntil(() -> {
+                loading.removeIf(schema -> gingersnap.countKeys(eagerRule(schema)) >= ROWS);
+                return loading.isEmpty();
+            }, Duration.ofSeconds(1), TIMEOUT);
+            var loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            sleep(SETTLE.toMillis());
+            // Empty when the cgroup usage cannot be read, the memory columns are then left blank
+            var cacheBytesPerRule = bytesPerRule(cacheBefore, usage(pod, CACHE_CONTAINER), 2 * tables);
+            var syncerBytesPerRule = bytesPerRule(syncerBefore, usage(pod, SYNCER_CONTAINER), 2 * tables);
+
+            // Every update targets a row of a random table, so that changes are spread over all the rules
+            var random = new Random(tables);
+            var writers = schemas.stream().map(schema -> new RowWriter(schema, db.dataSource())).collect(Collectors.toList());
+            var cdc = Benchmarks.histogram();
+            for (int version = 1; version <= UPDATES; version++) {
+                var table = random.nextInt(schemas.size());
+                var rule = eagerRule(schemas.get(table));
+                var key = Integer.toString(1 + random.nextInt(ROWS));
+                var marker = "\"" + TableSchema.marker(version);
+                var updateStart = System.nanoTime();
+                writers.get(table).update(Long.parseLong(key), version);
+                pollUntil(() -> {
+                    var value = gingersnap.get(rule, key);
+                    return value != null && value.contains(marker);
+                }, POLL_INTERVAL, TIMEOUT);
+                cdc.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - updateStart));
+            }
+
+            var eagerLatency = Latency.of(readyLatency(created, eagerReady));
+            var lazyLatency = Latency.of(readyLatency(created, lazyReady));
+            var cdcLatency = Latency.of(cdc);
+            var cacheBytes = cacheBytesPerRule.map(String::valueOf).orElse("");
+            var syncerBytes = syncerBytesPerRule.map(String::valueOf).orElse("");
+            System.out.printf("%s %d tables, %d rules: create=%dms all ready=%dms load=%dms cache=%s bytes/rule syncer=%s bytes/rule\neager ready: %s\nlazy ready: %s\ncdc: %s\n",
+                    dsType, tables, 2 * tables, createMillis, allReadyMillis, loadMillis,
+                    cacheBytesPerRule.map(String::valueOf).orElse("n/a"),
+                    syncerBytesPerRule.map(String::valueOf).orElse("n/a"),
+                    eagerLatency, lazyLatency, cdcLatency);
+            csv.append(String.format("%d,%d,%d,%d,%d,%.1f,%.1f,%.1f,%.1f,%d,%d,%s,%s\n", 2 * tables, ROWS, createMillis,
+                    allReadyMillis, loadMillis, eagerLatency.p50() / 1000.0, eagerLatency.p99() / 1000.0,
+                    lazyLatency.p50() / 1000.0, lazyLatency.p99() / 1000.0, cdcLatency.p50(), cdcLatency.p99(),
+                    cacheBytes, syncerBytes));
+            Benchmarks.write(getClass().getSimpleName() + ".csv", csv.toString());
+            var result = result(tables + "-tables").parameter("tables", tables).parameter("rules", 2 * tables)
+                    .parameter("rows", ROWS).parameter("updates", UPDATES).resource(cache)
+                    .millis("create", createMillis)
+                    .millis("all_ready", allReadyMillis)
+                    .millis("load", loadMillis)
+                    .latency("eager_ready", eagerLatency)
+                    .latency("lazy_ready", lazyLatency)
+                    .latency("cdc", cdcLatency);
+            cacheBytesPerRule.ifPresent(bytes -> result.metric("cache_bytes_per_rule", "bytes", false, bytes));
+            syncerBytesPerRule.ifPresent(bytes -> result.metric("syncer_bytes_per_rule", "bytes", false, bytes));
+            result.write();
+
+            for (var schema : schemas)
+                assertThat(lazyRule(schema), gingersnap.isRuleDefined(lazyRule(schema)), is(true));
+        } finally {
+            schemas.forEach(db::dropTable);
+        }
+    }
+
+    /**
+     * Records when each resource of the type is first observed Ready in the namespace, completing once {@code count}
+     * resources are.
+     */
+    private <T extends HasMetadata> CompletableFuture<List<T>> recordReady(Class<T> type, Predicate<T> ready,
+                                                                          Map<String, Long> readyNanos, int count) {
+        return k8s.resources(type).inNamespace(namespace).informOnCondition(resources -> {
+            var now = System.nanoTime();
+            for (var resource : resources) {
+                if (ready.test(resource))
+                    readyNanos.putIfAbsent(resource.getMetadata().getName(), now);
+            }
+            return readyNanos.size() >= count;
+        });
+    }
+
+    private Optional<MetricsScraper.CgroupUsage> usage(String pod, String container) throws Exception {
+        return MetricsScraper.cgroupUsageIfAllowed(k8s, namespace, pod, container, Duration.ofSeconds(30));
+    }
+
+    private static Optional<Long> bytesPerRule(Optional<MetricsScraper.CgroupUsage> before,
+                                               Optional<MetricsScraper.CgroupUsage> after, long rules) {
+        return before.flatMap(b -> after.map(a -> (a.memoryBytes() - b.memoryBytes()) / rules));
+    }
+
+    private static Histogram readyLatency(Map<String, Long> created, Map<String, Long> ready) {
+        var histogram = Benchmarks.histogram();
+        ready.forEach((rule, readyNanos) -> histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(readyNanos - created.get(rule))));
+        return histogram;
+    }
+
+    private static String eagerRule(TableSchema schema) {
+        return "eager-" + schema.name().replace('_', '-');
+    }
+
+    private static String lazyRule(TableSchema schema) {
+        return "lazy-" + schema.name().replace('_', '-');
+    }
+}
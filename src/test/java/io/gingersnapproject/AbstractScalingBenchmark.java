@@ -0,0 +1,116 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnap_project.v1alpha1.cachespec.Deployment;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.benchmark.KeyDistribution;
+import io.gingersnapproject.benchmark.ReadLoadGenerator;
+import io.gingersnapproject.data.Customer;
+import io.gingersnapproject.gingersnap.GingersnapClient;
+import io.gingersnapproject.gingersnap.GingersnapCluster;
+import io.gingersnapproject.kubernetes.Waits;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures the aggregate read throughput and latency of a {@code CLUSTER} deployment for each replica count of
+ * {@code -Dgingersnap.benchmark.scaling.replicas}, with the client spreading its requests over all the pods.
+ * <p>
+ * The replica counts are measured in increasing order, the scaling efficiency of each count being relative to the
+ * smallest one.
+ */
+@Isolated
+abstract class AbstractScalingBenchmark extends AbstractTest {
+
+    static final long ROWS = Long.getLong(Benchmarks.PROPERTY_PREFIX + "scaling.rows", 100_000);
+    static final Duration LOAD_TIMEOUT = Benchmarks.secondsProperty("scaling.timeout", 1800);
+
+    protected final DataSource.DbType dsType;
+    final StringBuilder csv = new StringBuilder(
+            "replicas,requests,throughput_req_per_s,p50_us,p99_us,p99.9_us,efficiency,baseline_replicas\n");
+    int baselineReplicas;
+    double baselineThroughput;
+
+    public AbstractScalingBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    static IntStream replicas() {
+        return LongStream.of(Benchmarks.longsProperty("scaling.replicas", "1,2,4"))
+                .mapToInt(Math::toIntExact)
+                .sorted()
+                .distinct();
+    }
+
+    @ParameterizedTest
+    @MethodSource("replicas")
+    public void benchmark(int replicas) {
+        db.seed(ROWS);
+        // The table also contains the entry added before each test
+        var expectedKeys = ROWS + 1;
+
+        String connSecretName = "db-credential-secret";
+        k8s.resource(db.connectionSecret(connSecretName))
+                .inNamespace(namespace)
+                .create();
+        var cache = cache(dsType, "scaling-cache", connSecretName);
+        var deployment = new Deployment();
+        deployment.setType(Deployment.Type.CLUSTER);
+        deployment.setReplicas(replicas);
+        cache.getSpec().setDeployment(deployment);
+        cache = createAndWaitForCache(cache);
+        Waits.awaitPodsReady(k8s, namespace, "app.kubernetes.io/name", "infinispan", replicas, Duration.ofMinutes(K8S_RESOURCE_TIMEOUT));
+
+        var ruleName = "scaling-rule";
+        var rule = createAndWaitForRule(
+                eagerCacheRule(
+                        ruleName,
+                        cache,
+                        "gingersnap." + Customer.TABLE_NAME,
+                        key -> key.setKeyColumns(Collections.singletonList("id")),
+                        value -> value.setValueColumns(List.of("fullname", "email"))
+                )
+        );
+
+        try (var cluster = GingersnapCluster.of(k8s, namespace, GingersnapClient.Options.DEFAULT)) {
+            assertThat(cluster.pods().toString(), cluster.size(), is(replicas));
+            for (var client : cluster.clients())
+                pollUntil(() -> client.countKeys(ruleName) >= expectedKeys, Duration.ofSeconds(1), LOAD_TIMEOUT);
+            var result = new ReadLoadGenerator(cluster.reader(ruleName),
+                    new KeyDistribution.Sequential().keys(1, expectedKeys),
+                    ReadLoadGenerator.Options.fromProperties()).run();
+            if (baselineReplicas == 0) {
+                baselineReplicas = replicas;
+                baselineThroughput = result.throughput();
+            }
+            // Throughput per replica relative to the smallest replica count, 1.0 means linear scaling
+            var efficiency = (result.throughput() / replicas) / (baselineThroughput / baselineReplicas);
+            var latency = result.latency();
+
+            System.out.printf("%s read throughput with %d replicas: %s efficiency=%.2f\n", dsType, replicas, result, efficiency);
+            csv.append(String.format("%d,%d,%.1f,%d,%d,%d,%.2f,%d\n", replicas, result.requests(), result.throughput(),
+                    latency.p50(), latency.p99(), latency.p999(), efficiency, baselineReplicas));
+            Benchmarks.write(getClass().getSimpleName() + ".csv", csv.toString());
+            result(replicas + "-replicas").parameter("rows", ROWS).parameter("replicas", replicas)
+                    .parameter("baseline_replicas", baselineReplicas)
+                    .resource(cache).resource(rule)
+                    .throughput("throughput", result.throughput())
+                    .latency("get", latency)
+                    .metric("efficiency", "ratio", true, efficiency)
+                    .write();
+
+            assertThat(result.errors(), is(0L));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.benchmark.Latency;
+import io.gingersnapproject.data.RowWriter;
+import io.gingersnapproject.data.TableSchema;
+import io.gingersnapproject.gingersnap.GingersnapClient;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * Measures how the cost of loading, reading and propagating changes scales with the width of a row and the size of its
+ * values, on tables generated for every {@code columns:payloadBytes} entry of
+ * {@code -Dgingersnap.benchmark.schema.shapes}. The value columns take the types of {@code schema.types} in turn.
+ * <p>
+ * For every shape, {@code schema.rows} rows are inserted, or fewer when they would exceed {@code schema.budget-mb}
+ * megabytes, and the benchmark records:
+ * <ul>
+ *     <li>the time for an eager rule to load the table, which includes the initial snapshot and its serialization</li>
+ *     <li>the latency and response size of reads of {@code schema.samples} distinct keys of the eager rule</li>
+ *     <li>the latency until {@code schema.updates} updates of all the values of a row are served by the eager rule</li>
+ *     <li>the latency of the first read of {@code schema.samples} keys through a lazy rule on the same table</li>
+ * </ul>
+ */
+@Isolated
+abstract class AbstractSchemaWidthBenchmark extends AbstractTest {
+
+    static final List<TableSchema.ColumnType> TYPES = TableSchema.ColumnType.parse(
+            System.getProperty(Benchmarks.PROPERTY_PREFIX + "schema.types", "text,bigint,varchar,double,int"));
+    static final int ROWS = Benchmarks.intProperty("schema.rows", 10_000);
+    static final long BUDGET_BYTES = Benchmarks.intProperty("schema.budget-mb", 256) * (1L << 20);
+    static final int SAMPLES = Benchmarks.intProperty("schema.samples", 500);
+    static final int UPDATES = Benchmarks.intProperty("schema.updates", 100);
+    static final Duration POLL_INTERVAL = Benchmarks.millisProperty("schema.poll-interval", 5);
+    static final Duration TIMEOUT = Benchmarks.secondsProperty("schema.timeout", 1800);
+
+    protected final DataSource.DbType dsType;
+    final StringBuilder csv = new StringBuilder("columns,payload_bytes,row_bytes,rows,insert_ms,load_ms," +
+            "load_rows_per_s,load_mb_per_s,response_bytes,get_p50_us,get_p99_us,cdc_p50_us,cdc_p99_us," +
+            "lazy_p50_us,lazy_p99_us\n");
+
+    public AbstractSchemaWidthBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    static Stream<TableSchema> schemas() {
+        return Arrays.stream(System.getProperty(Benchmarks.PROPERTY_PREFIX + "schema.shapes",
+                        "4:100,16:100,64:100,4:1000,4:10000,4:100000,4:1000000").split(","))
+                .map(shape -> {
+                    var parts = shape.trim().split(":");
+                    var columns = Integer.parseInt(parts[0]);
+                    var payload = Integer.parseInt(parts[1]);
+                    return TableSchema.generate("wide_" + columns + "_" + payload, columns, TYPES, payload);
+                });
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("schemas")
+    public void benchmark(TableSchema schema) {
+        var rows = (int) Math.max(1, Math.min(ROWS, BUDGET_BYTES / Math.max(1, schema.rowBytes())));
+        db.createTable(schema);
+        try {
+            var writer = new RowWriter(schema, db.dataSource());
+            var insertStart = System.nanoTime();
+            writer.insert(1, rows);
+            var insertMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - insertStart);
+
+            String connSecretName = "db-credential-secret";
+            k8s.resource(db.connectionSecret(connSecretName))
+                    .inNamespace(namespace)
+                    .create();
+            var cache = createAndWaitForCache(cache(dsType, "schema-cache", connSecretName));
+            var gingersnap = gingersnap(cache);
+
+            var eagerRule = "eager-rule";
+            var loadStart = System.nanoTime();
+            var rule = createAndWaitForRule(schema.eagerCacheRule(eagerRule, cache));
+            pollUntil(() -> gingersnap.countKeys(eagerRule) >= rows, Duration.ofSeconds(1), TIMEOUT);
+            var loadNanos = System.nanoTime() - loadStart;
+
+            var ids = IntStream.rangeClosed(1, rows).mapToObj(Integer::toString).collect(Collectors.toCollection(ArrayList::new));
+            Collections.shuffle(ids, new Random(rows));
+            var keys = ids.subList(0, Math.min(SAMPLES, rows));
+            var get = read(gingersnap, eagerRule, keys);
+
+            var random = new Random(rows);
+            var cdc = Benchmarks.histogram();
+            for (int version = 1; version <= UPDATES; version++) {
+                var key = Integer.toString(1 + random.nextInt(rows));
+                var marker = "\"" + TableSchema.marker(version);
+                var start = System.nanoTime();
+                writer.update(Long.parseLong(key), version);
+                pollUntil(() -> {
+                    var value = gingersnap.get(eagerRule, key);
+                    return value != null && value.contains(marker);
+                }, POLL_INTERVAL, TIMEOUT);
+                cdc.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            }
+
+            // Every key is read once, so that all the reads load the row from the database
+            var lazyRule = "lazy-rule";
+            createAndWaitForRule(schema.lazyCacheRule(lazyRule, cache, db));
+            eventually(() -> gingersnap.isRuleDefined(lazyRule));
+            var lazy = read(gingersnap, lazyRule, keys);
+
+            var getLatency = Latency.of(get.latency());
+            var cdcLatency = Latency.of(cdc);
+            var lazyLatency = Latency.of(lazy.latency());
+            var loadSeconds = loadNanos / 1e9;
+            var meanResponseBytes = get.bytes() / keys.size();
+            System.out.printf("%s schema %s, %d rows of %d bytes: insert=%dms load=%dms response=%d bytes\nget: %s\ncdc: %s\nlazy: %s\n",
+                    dsType, schema, rows, schema.rowBytes(), insertMillis, TimeUnit.NANOSECONDS.toMillis(loadNanos),
+                    meanResponseBytes, getLatency, cdcLatency, lazyLatency);
+            csv.append(String.format("%d,%d,%d,%d,%d,%d,%.0f,%.2f,%d,%d,%d,%d,%d,%d,%d\n",
+                    schema.columns().size(), schema.payloadBytes(),
+                    schema.rowBytes(), rows, insertMillis, TimeUnit.NANOSECONDS.toMillis(loadNanos), rows / loadSeconds,
+                    rows * schema.rowBytes() / loadSeconds / (1 << 20), meanResponseBytes, getLatency.p50(),
+                    getLatency.p99(), cdcLatency.p50(), cdcLatency.p99(), lazyLatency.p50(), lazyLatency.p99()));
+            Benchmarks.write(getClass().getSimpleName() + ".csv", csv.toString());
+            result(schema.name()).parameter("rows", rows).parameter("columns", schema.columns().size())
+                    .parameter("payload_bytes", schema.payloadBytes()).resource(cache).resource(rule)
+                    .millis("insert", insertMillis)
+                    .throughput("load_rows_per_second", rows / loadSeconds)
+                    .latency("get", getLatency)
+                    .latency("cdc", cdcLatency)
+                    .latency("lazy", lazyLatency)
+                    .write();
+        } finally {
+            db.dropTable(schema);
+        }
+    }
+
+    /**
+     * @param latency the latency of every read
+     * @param bytes   the total number of characters of the values read
+     */
+    record Reads(Histogram latency, long bytes) {
+    }
+
+    private Reads read(GingersnapClient gingersnap, String rule, List<String> keys) {
+        var histogram = Benchmarks.histogram();
+        var bytes = 0L;
+        for (var key : keys) {
+            var start = System.nanoTime();
+            var value = gingersnap.get(rule, key);
+            histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            assertThat(key, value, notNullValue());
+            bytes += value.length();
+        }
+        return new Reads(histogram, bytes);
+    }
+}
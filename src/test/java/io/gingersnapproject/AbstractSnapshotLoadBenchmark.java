@@ -0,0 +1,95 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.data.Customer;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Measures how long a new eager rule takes to load a pre-existing table of {@code rows} entries, for each value of
+ * {@code -Dgingersnap.benchmark.snapshot.rows}.
+ */
+@Isolated
+abstract class AbstractSnapshotLoadBenchmark extends AbstractTest {
+
+    static final Duration POLL_INTERVAL = Benchmarks.millisProperty("snapshot.poll", 1000);
+    static final Duration LOAD_TIMEOUT = Benchmarks.secondsProperty("snapshot.timeout", TimeUnit.HOURS.toSeconds(1));
+
+    protected final DataSource.DbType dsType;
+    final StringBuilder csv = new StringBuilder("rows,seed_rows_per_s,ready_ms,first_key_ms,all_keys_ms,load_rows_per_s\n");
+
+    public AbstractSnapshotLoadBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    static LongStream rows() {
+        return LongStream.of(Benchmarks.longsProperty("snapshot.rows", "100000,1000000,10000000"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("rows")
+    public void benchmark(long rows) {
+        var seed = db.seed(rows);
+        // The table also contains the entry added before each test
+        var expectedKeys = rows + 1;
+
+        String connSecretName = "db-credential-secret";
+        k8s.resource(db.connectionSecret(connSecretName))
+                .inNamespace(namespace)
+                .create();
+        var cache = createAndWaitForCache(cache(dsType, "snapshot-cache", connSecretName));
+        var gingersnap = gingersnap(cache);
+
+        var ruleName = "snapshot-rule";
+        var firstKeyNanos = new AtomicLong();
+        var start = System.nanoTime();
+        var loaded = CompletableFuture.supplyAsync(() -> {
+            pollUntil(() -> gingersnap.hasKeys(ruleName), POLL_INTERVAL, LOAD_TIMEOUT);
+            firstKeyNanos.set(System.nanoTime() - start);
+            pollUntil(() -> gingersnap.countKeys(ruleName) >= expectedKeys, POLL_INTERVAL, LOAD_TIMEOUT);
+            return System.nanoTime() - start;
+        });
+
+        var rule = createAndWaitForRule(
+                eagerCacheRule(
+                        ruleName,
+                        cache,
+                        "gingersnap." + Customer.TABLE_NAME,
+                        key -> key.setKeyColumns(Collections.singletonList("id")),
+                        value -> value.setValueColumns(List.of("fullname", "email"))
+                )
+        );
+        var readyNanos = System.nanoTime() - start;
+        var allKeysNanos = loaded.join();
+
+        var loadRowsPerSecond = expectedKeys * 1e9 / allKeysNanos;
+        System.out.printf("%s snapshot load of %d rows: ready=%dms firstKey=%dms allKeys=%dms throughput=%.0frows/s\n",
+                dsType, rows, TimeUnit.NANOSECONDS.toMillis(readyNanos), TimeUnit.NANOSECONDS.toMillis(firstKeyNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(allKeysNanos), loadRowsPerSecond);
+        csv.append(String.format("%d,%.0f,%d,%d,%d,%.0f\n", rows, seed.rowsPerSecond(), TimeUnit.NANOSECONDS.toMillis(readyNanos),
+                TimeUnit.NANOSECONDS.toMillis(firstKeyNanos.get()), TimeUnit.NANOSECONDS.toMillis(allKeysNanos), loadRowsPerSecond));
+        Benchmarks.write(getClass().getSimpleName() + ".csv", csv.toString());
+        result(rows + "-rows").parameter("rows", rows).resource(cache).resource(rule)
+                .millis("ready", TimeUnit.NANOSECONDS.toMillis(readyNanos))
+                .millis("first_key", TimeUnit.NANOSECONDS.toMillis(firstKeyNanos.get()))
+                .millis("all_keys", TimeUnit.NANOSECONDS.toMillis(allKeysNanos))
+                .throughput("load_rows_per_second", loadRowsPerSecond)
+                .write();
+
+        assertThat(gingersnap.countKeys(ruleName), greaterThan(rows));
+    }
+}
@@ -2,9 +2,16 @@ package io.gingersnapproject;
 
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.gingersnap_project.v1alpha1.Cache;
-import io.gingersnap_project.v1alpha1.cachestatus.Conditions;
+import io.gingersnap_project.v1alpha1.EagerCacheRule;
+import io.gingersnap_project.v1alpha1.LazyCacheRule;
+import io.gingersnapproject.benchmark.BenchmarkResult;
 import io.gingersnapproject.database.Database;
+import io.gingersnapproject.gingersnap.GingersnapClient;
+import io.gingersnapproject.kubernetes.FlightRecorder;
 import io.gingersnapproject.kubernetes.KubernetesClientResolver;
+import io.gingersnapproject.kubernetes.MetricsScraper;
+import io.gingersnapproject.kubernetes.MockCluster;
+import io.gingersnapproject.kubernetes.Waits;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,20 +19,27 @@ import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.io.Closeable;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
 
 import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.not;
 
 @ExtendWith(KubernetesClientResolver.class)
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 abstract class AbstractTest {
     public static final int K8S_RESOURCE_TIMEOUT = 4;
-    protected final String namespace = "test";
+    // Unique per test, so that test classes can be executed concurrently
+    protected String namespace;
 
     protected Database db;
     protected KubernetesClient k8s;
 
     Closeable forwardedPort;
+    MetricsScraper metrics;
+    FlightRecorder recorder;
+    int gingersnapPort = GingersnapClient.DEFAULT_PORT;
 
     @BeforeAll
     public void beforeAll(Database database, KubernetesClient k8sClient) {
@@ -35,13 +49,20 @@ abstract class AbstractTest {
 
     @BeforeEach
     public void beforeEach() {
-        waitForNamespaceDeletion(k8s, namespace);
+        namespace = uniqueNamespace(getClass().getSimpleName());
         createNamespace(k8s, namespace);
+        recorder = FlightRecorder.start(k8s, namespace, getClass().getSimpleName());
     }
 
     @AfterEach
     public void afterEach() throws Exception {
+        if (recorder != null) recorder.close();
+        recorder = null;
+        if (metrics != null) metrics.close();
+        metrics = null;
         if (forwardedPort != null) forwardedPort.close();
+        forwardedPort = null;
+        gingersnapPort = GingersnapClient.DEFAULT_PORT;
         k8s.namespaces().withName(namespace).delete();
     }
 
@@ -51,17 +72,57 @@ abstract class AbstractTest {
                 .create();
 
         // Wait for Cache to become Ready
-        cache = k8s.resource(cache)
+        cache = Waits.awaitReady(k8s, cache, Duration.ofMinutes(K8S_RESOURCE_TIMEOUT));
+
+        forwardGingersnapPort();
+        metrics = MetricsScraper.start(k8s, namespace, getClass().getSimpleName());
+        if (recorder != null) recorder.attach();
+        return cache;
+    }
+
+    /**
+     * Forwards a local port to the cache when the tests run outside the cluster, so that {@link #gingersnap(Cache)}
+     * reaches it. Must be called once the cache is Ready, the forward is closed after the test.
+     */
+    protected void forwardGingersnapPort() {
+        if (!LOCAL_TEST_EXECUTION || MockCluster.ENABLED)
+            return;
+        // Every pod of a CLUSTER deployment serves all the keys
+        var pods = readyPods(k8s, namespace, "infinispan");
+        assertThat(pods, not(empty()));
+        var forward = forwardPort(k8s, pods.get(0), GingersnapClient.DEFAULT_PORT, 0);
+        forwardedPort = forward;
+        gingersnapPort = forward.getLocalPort();
+    }
+
+    /**
+     * @return a result of the test class for the variant, describing the environment of the test namespace
+     */
+    protected BenchmarkResult result(String variant) {
+        return new BenchmarkResult(getClass().getSimpleName(), variant).environment(k8s, namespace);
+    }
+
+    protected GingersnapClient gingersnap(Cache cache) {
+        if (MockCluster.ENABLED)
+            return GingersnapClient.of(MockCluster.instance().gingersnap(cache).uri());
+        return GingersnapClient.of(cache, gingersnapPort);
+    }
+
+    protected EagerCacheRule createAndWaitForRule(EagerCacheRule rule) {
+        rule = k8s.resource(rule)
                 .inNamespace(namespace)
-                .waitUntilCondition(c -> {
-                    if (c.getStatus() == null || c.getStatus().getConditions() == null)
-                        return false;
+                .create();
+
+        // Wait for Rule to be Ready
+        return Waits.awaitReady(k8s, rule, Duration.ofMinutes(K8S_RESOURCE_TIMEOUT));
+    }
 
-                    var readyCondition = c.getStatus().getConditions().stream().filter(condition -> condition.getType() == Conditions.Type.READY).findFirst();
-                    return readyCondition.isPresent() && readyCondition.get().getStatus() == Conditions.Status.TRUE;
-                }, K8S_RESOURCE_TIMEOUT, TimeUnit.MINUTES);
+    protected LazyCacheRule createAndWaitForRule(LazyCacheRule rule) {
+        rule = k8s.resource(rule)
+                .inNamespace(namespace)
+                .create();
 
-        forwardedPort = forwardPort(k8s, namespace, "infinispan", 8080, 8080);
-        return cache;
+        // Wait for Rule to be Ready
+        return Waits.awaitReady(k8s, rule, Duration.ofMinutes(K8S_RESOURCE_TIMEOUT));
     }
 }
@@ -0,0 +1,126 @@
+package io.gingersnapproject;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.benchmark.ConsistencyChecker;
+import io.gingersnapproject.benchmark.KeyDistribution;
+import io.gingersnapproject.benchmark.PropagationProbe;
+import io.gingersnapproject.benchmark.WriteLoadGenerator;
+import io.gingersnapproject.benchmark.WriteLoadResult;
+import io.gingersnapproject.data.Customer;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures the database latency of a concurrent write workload, the CDC propagation latency observed while it runs
+ * and the time the cache takes to converge on the table once it stops. The propagation probe starts once the write
+ * load has warmed up, so the write duration should exceed the time the probe needs ({@code 3 * samples / rate}
+ * seconds plus the propagation delay). The benchmark is repeated for each {@link KeyDistribution} of the rows
+ * updated.
+ */
+@Isolated
+abstract class AbstractWriteLoadBenchmark extends AbstractTest {
+
+    protected final DataSource.DbType dsType;
+    final StringBuilder writesCsv = new StringBuilder();
+    final StringBuilder propagationCsv = new StringBuilder();
+    final StringBuilder consistencyTxt = new StringBuilder();
+
+    public AbstractWriteLoadBenchmark(DataSource.DbType dsType) {
+        this.dsType = dsType;
+    }
+
+    static Stream<KeyDistribution> distributions() {
+        return KeyDistribution.fromProperties().stream();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("distributions")
+    public void benchmark(KeyDistribution distribution) throws Exception {
+        String cacheName = "write-cache";
+        String connSecretName = "db-credential-secret";
+        k8s.resource(db.connectionSecret(connSecretName))
+                .inNamespace(namespace)
+                .create();
+
+        var cache = createAndWaitForCache(cache(dsType, cacheName, connSecretName));
+
+        var ruleName = "write-rule";
+        var rule = createAndWaitForRule(
+                eagerCacheRule(
+                        ruleName,
+                        cache,
+                        "gingersnap." + Customer.TABLE_NAME,
+                        key -> key.setKeyColumns(Collections.singletonList("id")),
+                        value -> value.setValueColumns(List.of("fullname", "email"))
+                )
+        );
+
+        var gingersnap = gingersnap(cache);
+        eventually(() -> gingersnap.get(ruleName, "1") != null);
+
+        var options = WriteLoadGenerator.Options.fromProperties().withDistribution(distribution);
+        var executor = Executors.newSingleThreadExecutor(Benchmarks.threadFactory("write-load"));
+        WriteLoadResult writes;
+        PropagationProbe.Result propagation;
+        try {
+            var load = CompletableFuture.supplyAsync(() -> new WriteLoadGenerator(db.dataSource(), options).run(),
+                    executor);
+            sleep(options.warmup().toMillis());
+            var probeOptions = PropagationProbe.Options.fromProperties();
+            try (var probe = new PropagationProbe(gingersnap, ruleName, db, probeOptions)) {
+                propagation = probe.run();
+            }
+            writes = load.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        System.out.printf("%s write load: %s\n", dsType, writes);
+        System.out.printf("%s propagation latency under write load:\n%s\n", dsType, propagation);
+        Benchmarks.write(getClass().getSimpleName() + "-writes.csv",
+                appendCsv(writesCsv, distribution, writes.toCsv()));
+        Benchmarks.write(getClass().getSimpleName() + "-propagation.csv",
+                appendCsv(propagationCsv, distribution, propagation.toCsv()));
+        result(distribution.toString())
+                .parameter("workers", options.workers())
+                .parameter("duration", options.duration())
+                .resource(cache).resource(rule)
+                .throughput("write_throughput", writes.throughput())
+                .propagation(propagation)
+                .write();
+
+        // The cache must converge on the table once the writes stop
+        var consistency = new ConsistencyChecker(gingersnap, ruleName, db.dataSource(),
+                ConsistencyChecker.Options.fromProperties())
+                .awaitConsistent();
+        System.out.printf("%s cache %s\n", dsType, consistency);
+        consistencyTxt.append(distribution).append(": ").append(consistency).append('\n');
+        Benchmarks.write(getClass().getSimpleName() + "-consistency.txt", consistencyTxt.toString());
+
+        assertThat(writes.errors(), is(0L));
+        assertThat(consistency.isConsistent(), is(true));
+    }
+
+    /**
+     * Appends the lines of {@code csv} prefixed with the distribution, its header only to an empty table.
+     */
+    private static String appendCsv(StringBuilder table, KeyDistribution distribution, String csv) {
+        var lines = csv.split("\n");
+        if (table.length() == 0)
+            table.append("distribution,").append(lines[0]).append('\n');
+        for (int i = 1; i < lines.length; i++)
+            table.append(distribution).append(',').append(lines[i]).append('\n');
+        return table.toString();
+    }
+}
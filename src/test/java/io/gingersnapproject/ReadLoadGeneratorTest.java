@@ -0,0 +1,86 @@
+package io.gingersnapproject;
+
+import io.gingersnapproject.benchmark.ReadLoadGenerator;
+import io.gingersnapproject.gingersnap.GingersnapClient;
+import io.gingersnapproject.gingersnap.StubGingersnapServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Exercises the {@link ReadLoadGenerator} against a local stub server, measuring the maximum throughput the
+ * generator itself is able to produce.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Isolated
+public class ReadLoadGeneratorTest {
+
+    static final String RULE = "load-rule";
+    static final int KEYS = 100;
+
+    StubGingersnapServer server;
+    GingersnapClient gingersnap;
+    // Cycles through all keys plus one which does not exist
+    final AtomicInteger counter = new AtomicInteger();
+    final Supplier<String> keys = () -> Integer.toString(Math.floorMod(counter.getAndIncrement(), KEYS + 1));
+
+    @BeforeAll
+    public void beforeAll() {
+        server = StubGingersnapServer.start();
+        for (int i = 0; i < KEYS; i++)
+            server.put(RULE, Integer.toString(i), String.format("{\"fullname\":\"Customer %1$d\",\"email\":\"customer%1$d@example.com\"}", i));
+        gingersnap = GingersnapClient.of(server.uri());
+    }
+
+    @AfterAll
+    public void afterAll() {
+        if (server != null) server.close();
+    }
+
+    @Test
+    public void testClosedLoop() {
+        var options = ReadLoadGenerator.Options.closedLoop(8, Duration.ofSeconds(3))
+                .withWarmup(Duration.ofSeconds(1));
+        var result = new ReadLoadGenerator(gingersnap, RULE, keys, options).run();
+        System.out.printf("Closed loop: %s\n", result);
+
+        assertThat(result.errors(), is(0L));
+        assertThat(result.requests(), greaterThan(0L));
+        // One key in KEYS + 1 does not exist
+        assertThat(result.misses(), allOf(greaterThan(0L), lessThan(result.requests())));
+        assertThat(result.latency().count(), is(result.requests()));
+    }
+
+    @Test
+    public void testOpenLoop() {
+        var rate = 200;
+        var options = ReadLoadGenerator.Options.openLoop(4, rate, Duration.ofSeconds(3))
+                .withWarmup(Duration.ofSeconds(1));
+        var result = new ReadLoadGenerator(gingersnap, RULE, keys, options).run();
+        System.out.printf("Open loop: %s\n", result);
+
+        assertThat(result.errors(), is(0L));
+        assertThat(result.throughput(), closeTo(rate, rate * 0.1));
+    }
+
+    @Test
+    public void testErrorsAreCounted() {
+        var options = ReadLoadGenerator.Options.closedLoop(2, Duration.ofSeconds(1));
+        var result = new ReadLoadGenerator(key -> {
+            throw new IllegalStateException("expected");
+        }, keys, options).run();
+
+        assertThat(result.requests(), greaterThan(0L));
+        assertThat(result.errors(), is(result.requests()));
+        assertThat(result.latency().count(), is(0L));
+    }
+}
@@ -0,0 +1,84 @@
+package io.gingersnapproject;
+
+import com.google.gson.Gson;
+import io.gingersnapproject.benchmark.KeyDistribution;
+import io.gingersnapproject.benchmark.PropagationProbe;
+import io.gingersnapproject.benchmark.WriteLoadGenerator;
+import io.gingersnapproject.data.Customer;
+import io.gingersnapproject.database.ChangeEvent;
+import io.gingersnapproject.database.Database;
+import io.gingersnapproject.database.H2;
+import io.gingersnapproject.gingersnap.GingersnapClient;
+import io.gingersnapproject.gingersnap.StubGingersnapServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Runs a {@link PropagationProbe} while a {@link WriteLoadGenerator} writes to the same table, like
+ * {@link AbstractWriteLoadBenchmark} does, against an embedded database whose changes are replicated to a local stub
+ * server standing in for an eager rule.
+ */
+@ExtendWith(H2.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Isolated
+public class WriteLoadPropagationTest {
+
+    static final String RULE = "customer-rule";
+    static final Gson GSON = new Gson();
+
+    H2 db;
+    StubGingersnapServer server;
+
+    @BeforeAll
+    public void beforeAll(Database database) {
+        db = (H2) database;
+        server = StubGingersnapServer.start().rule(RULE);
+    }
+
+    @AfterAll
+    public void afterAll() {
+        if (server != null) server.close();
+    }
+
+    @Test
+    public void testProbeUnderWriteLoad() throws Exception {
+        var writeOptions = new WriteLoadGenerator.Options(4, 400, WriteLoadGenerator.Mix.parse("50,30,20"),
+                KeyDistribution.parse("uniform"), 1L << 30, Duration.ZERO, Duration.ofSeconds(3));
+        var probeOptions = new PropagationProbe.Options(20, 20, Duration.ofMillis(5), Duration.ofSeconds(10), 1L << 29);
+        try (var subscription = db.changes().subscribe(this::replicate);
+             var probe = new PropagationProbe(GingersnapClient.of(server.uri()), RULE, db, probeOptions)) {
+            var load = CompletableFuture.supplyAsync(() -> new WriteLoadGenerator(db.dataSource(), writeOptions).run());
+            // The first rows of the load are inserted before the probe's, which then lie below them
+            Thread.sleep(200);
+            var propagation = probe.run();
+            var writes = load.get();
+            System.out.printf("Write load: %s\nPropagation:\n%s\n", writes, propagation);
+
+            assertThat(writes.errors(), is(0L));
+            propagation.timeouts().forEach((op, timeouts) -> assertThat(op.toString(), timeouts, is(0L)));
+            propagation.latencies().forEach((op, latency) ->
+                    assertThat(op.toString(), latency.getTotalCount(), is((long) probeOptions.samples())));
+        }
+    }
+
+    private void replicate(ChangeEvent event) {
+        if (!event.table().equals("gingersnap." + Customer.TABLE_NAME))
+            return;
+        var key = event.row().get("id").toString();
+        if (event.operation() == ChangeEvent.Operation.DELETE) {
+            server.remove(RULE, key);
+        } else {
+            server.put(RULE, key, GSON.toJson(event.after()));
+        }
+    }
+}
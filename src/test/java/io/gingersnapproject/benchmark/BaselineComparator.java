@@ -0,0 +1,207 @@
+package io.gingersnapproject.benchmark;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the {@link BenchmarkResult}s of a run against the results of a baseline run, metric by metric.
+ * <p>
+ * A metric with at least two samples on both sides is compared with Welch's t-test: it changed if the difference of
+ * the means is significant at level {@code regression.alpha} and larger than {@code regression.min-change} of the
+ * baseline mean. A metric with a single sample on either side has no variance to test against, so it changed if the
+ * difference is larger than {@code regression.threshold} of the baseline mean. A change is a regression when it goes
+ * in the wrong direction, e.g. a lower throughput or a higher latency.
+ */
+public class BaselineComparator {
+
+    public enum Verdict {
+        REGRESSION, IMPROVEMENT, UNCHANGED, MISSING, NEW
+    }
+
+    /**
+     * @param alpha     the significance level of the t-test
+     * @param minChange the relative change below which a significant difference is ignored
+     * @param threshold the relative change above which a metric without variance changed
+     */
+    public record Options(double alpha, double minChange, double threshold) {
+
+        public static Options fromProperties() {
+            return new Options(
+                    doubleProperty("regression.alpha", 0.05),
+                    doubleProperty("regression.min-change", 0.05),
+                    doubleProperty("regression.threshold", 0.10)
+            );
+        }
+
+        private static double doubleProperty(String name, double defaultValue) {
+            return Double.parseDouble(System.getProperty(Benchmarks.PROPERTY_PREFIX + name, Double.toString(defaultValue)));
+        }
+    }
+
+    /**
+     * @param change the change of the mean relative to the baseline mean
+     * @param pValue the p-value of the t-test, {@code NaN} if the metric has a single sample
+     */
+    public record Comparison(String result, String metric, String unit, double baseline, double current, double change,
+                             double pValue, Verdict verdict) {
+    }
+
+    public record Report(List<Comparison> comparisons) {
+
+        public List<Comparison> regressions() {
+            return with(Verdict.REGRESSION);
+        }
+
+        public List<Comparison> with(Verdict verdict) {
+            return comparisons.stream().filter(c -> c.verdict == verdict).collect(Collectors.toList());
+        }
+
+        /**
+         * @return a markdown summary listing every metric that did not stay unchanged
+         */
+        public String toMarkdown() {
+            var md = new StringBuilder("# Benchmark comparison\n\n");
+            for (var verdict : Verdict.values())
+                md.append(String.format("- %s: %d\n", verdict.name().toLowerCase(), with(verdict).size()));
+            var changed = comparisons.stream()
+                    .filter(c -> c.verdict != Verdict.UNCHANGED)
+                    .sorted(Comparator.comparing(Comparison::verdict))
+                    .collect(Collectors.toList());
+            if (!changed.isEmpty()) {
+                md.append("\n| Verdict | Result | Metric | Baseline | Current | Change | p-value |\n");
+                md.append("|---|---|---|---:|---:|---:|---:|\n");
+                changed.forEach(c -> md.append(String.format("| %s | %s | %s | %s | %s | %s | %s |\n", c.verdict,
+                        c.result, c.metric, format(c.baseline, c.unit), format(c.current, c.unit),
+                        Double.isNaN(c.change) ? "" : String.format("%+.1f%%", 100 * c.change),
+                        Double.isNaN(c.pValue) ? "" : String.format("%.4f", c.pValue))));
+            }
+            return md.toString();
+        }
+
+        private static String format(double value, String unit) {
+            return Double.isNaN(value) ? "" : String.format("%.1f %s", value, unit);
+        }
+    }
+
+    private BaselineComparator() {
+    }
+
+    public static Report compare(List<BenchmarkResult> baseline, List<BenchmarkResult> current, Options options) {
+        var baselines = byId(baseline);
+        var currents = byId(current);
+        var comparisons = new ArrayList<Comparison>();
+        for (var result : currents.values()) {
+            var base = baselines.get(result.id());
+            var baseMetrics = base == null ? Map.<String, BenchmarkResult.Metric>of() : byName(base.metrics());
+            for (var metric : result.metrics()) {
+                var baseMetric = baseMetrics.get(metric.name());
+                comparisons.add(baseMetric == null ?
+                        new Comparison(result.id(), metric.name(), metric.unit(), Double.NaN, metric.mean(), Double.NaN, Double.NaN, Verdict.NEW) :
+                        compare(result.id(), baseMetric, metric, options));
+            }
+        }
+        for (var base : baselines.values()) {
+            var result = currents.get(base.id());
+            var metrics = result == null ? Map.<String, BenchmarkResult.Metric>of() : byName(result.metrics());
+            base.metrics().stream()
+                    .filter(metric -> !metrics.containsKey(metric.name()))
+                    .forEach(metric -> comparisons.add(new Comparison(base.id(), metric.name(), metric.unit(),
+                            metric.mean(), Double.NaN, Double.NaN, Double.NaN, Verdict.MISSING)));
+        }
+        return new Report(comparisons);
+    }
+
+    static Comparison compare(String result, BenchmarkResult.Metric baseline, BenchmarkResult.Metric current, Options options) {
+        var change = baseline.mean() == 0 ?
+                (current.mean() == 0 ? 0 : Math.signum(current.mean()) * Double.POSITIVE_INFINITY) :
+                (current.mean() - baseline.mean()) / Math.abs(baseline.mean());
+        var pValue = Double.NaN;
+        boolean changed;
+        if (baseline.samples().size() >= 2 && current.samples().size() >= 2) {
+            pValue = welchTTest(baseline, current);
+            changed = pValue < options.alpha() && Math.abs(change) >= options.minChange();
+        } else {
+            changed = Math.abs(change) >= options.threshold();
+        }
+        var verdict = !changed ? Verdict.UNCHANGED :
+                (change > 0) == current.higherIsBetter() ? Verdict.IMPROVEMENT : Verdict.REGRESSION;
+        return new Comparison(result, current.name(), current.unit(), baseline.mean(), current.mean(), change, pValue, verdict);
+    }
+
+    /**
+     * @return the two-sided p-value of Welch's t-test of the means of the samples
+     */
+    static double welchTTest(BenchmarkResult.Metric a, BenchmarkResult.Metric b) {
+        double na = a.samples().size(), nb = b.samples().size();
+        var va = a.variance() / na;
+        var vb = b.variance() / nb;
+        var diff = a.mean() - b.mean();
+        if (va + vb == 0)
+            return diff == 0 ? 1 : 0;
+        var t = diff / Math.sqrt(va + vb);
+        var df = (va + vb) * (va + vb) / (va * va / (na - 1) + vb * vb / (nb - 1));
+        return regularizedIncompleteBeta(df / (df + t * t), df / 2, 0.5);
+    }
+
+    /**
+     * The regularized incomplete beta function I<sub>x</sub>(a, b), evaluated with its continued fraction.
+     */
+    static double regularizedIncompleteBeta(double x, double a, double b) {
+        if (x <= 0)
+            return 0;
+        if (x >= 1)
+            return 1;
+        if (x > (a + 1) / (a + b + 2))
+            return 1 - regularizedIncompleteBeta(1 - x, b, a);
+        var front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x)) / a;
+        // Lentz's algorithm
+        final double tiny = 1e-300;
+        double c = 1, d = 1 - (a + b) * x / (a + 1);
+        d = 1 / (Math.abs(d) < tiny ? tiny : d);
+        var f = d;
+        for (int m = 1; m <= 300; m++) {
+            for (int step = 0; step < 2; step++) {
+                var numerator = step == 0 ?
+                        m * (b - m) * x / ((a + 2 * m - 1) * (a + 2 * m)) :
+                        -(a + m) * (a + b + m) * x / ((a + 2 * m) * (a + 2 * m + 1));
+                d = 1 + numerator * d;
+                d = 1 / (Math.abs(d) < tiny ? tiny : d);
+                c = 1 + numerator / c;
+                if (Math.abs(c) < tiny) c = tiny;
+                f *= c * d;
+            }
+            if (Math.abs(c * d - 1) < 1e-12)
+                break;
+        }
+        return front * f;
+    }
+
+    /**
+     * The logarithm of the gamma function, with the Lanczos approximation.
+     */
+    static double logGamma(double x) {
+        final double[] coefficients = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+        var tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        var series = 1.000000000190015;
+        var y = x;
+        for (var coefficient : coefficients)
+            series += coefficient / ++y;
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+
+    private static Map<String, BenchmarkResult> byId(List<BenchmarkResult> results) {
+        // The latest result of a benchmark variant wins
+        return results.stream().collect(Collectors.toMap(BenchmarkResult::id, Function.identity(), (a, b) -> b, LinkedHashMap::new));
+    }
+
+    private static Map<String, BenchmarkResult.Metric> byName(List<BenchmarkResult.Metric> metrics) {
+        return metrics.stream().collect(Collectors.toMap(BenchmarkResult.Metric::name, Function.identity(), (a, b) -> b));
+    }
+}
@@ -0,0 +1,72 @@
+package io.gingersnapproject.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static io.gingersnapproject.benchmark.BaselineComparator.Verdict.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BaselineComparatorTest {
+
+    static final BaselineComparator.Options OPTIONS = new BaselineComparator.Options(0.05, 0.05, 0.10);
+
+    @Test
+    public void testWelchTTest() {
+        // The first example of the Welch's t-test Wikipedia article: t=-2.46, df=24.9, p=0.021
+        var a = metric(true, 27.5, 21.0, 19.0, 23.6, 17.0, 17.9, 16.9, 20.1, 21.9, 22.6, 23.1, 19.6, 19.0, 21.7, 21.4);
+        var b = metric(true, 27.1, 22.0, 20.8, 23.4, 23.4, 23.5, 25.8, 22.0, 24.8, 20.2, 21.9, 22.1, 22.9, 20.5, 24.4);
+        assertThat(BaselineComparator.welchTTest(a, b), closeTo(0.021, 1e-3));
+        assertThat(BaselineComparator.welchTTest(a, a), closeTo(1, 1e-9));
+    }
+
+    @Test
+    public void testCompare() {
+        var baseline = new BenchmarkResult("Bench", "v")
+                .metric("throughput", "1/s", true, 1000, 1010, 990, 1005, 995)
+                .metric("latency", "us", false, 100, 102, 98, 101, 99)
+                .metric("noisy", "us", false, 100, 150, 50, 120, 80)
+                .millis("load", 1000)
+                .millis("removed", 1);
+        var current = new BenchmarkResult("Bench", "v")
+                .metric("throughput", "1/s", true, 800, 810, 790, 805, 795)
+                .metric("latency", "us", false, 80, 82, 78, 81, 79)
+                .metric("noisy", "us", false, 110, 160, 60, 130, 90)
+                .millis("load", 1050)
+                .millis("added", 1);
+        var report = BaselineComparator.compare(List.of(baseline), List.of(current), OPTIONS);
+
+        assertThat(verdict(report, "throughput"), is(REGRESSION));
+        assertThat(verdict(report, "latency"), is(IMPROVEMENT));
+        assertThat(verdict(report, "noisy"), is(UNCHANGED));
+        assertThat(verdict(report, "load"), is(UNCHANGED));
+        assertThat(verdict(report, "added"), is(NEW));
+        assertThat(verdict(report, "removed"), is(MISSING));
+        assertThat(report.toMarkdown(), allOf(containsString("- regression: 1"), containsString("| REGRESSION | Bench/v | throughput |")));
+
+        var slower = new BenchmarkResult("Bench", "v").millis("load", 1200);
+        assertThat(verdict(BaselineComparator.compare(List.of(baseline), List.of(slower), OPTIONS), "load"), is(REGRESSION));
+    }
+
+    @Test
+    public void testReadWrite(@TempDir Path dir) {
+        var result = new BenchmarkResult("Bench", "v").parameter("rows", 10).latency("get", new Latency(10, 1.5, 1, 2, 3, 4));
+        var path = dir.resolve("baseline.json");
+        BenchmarkResult.write(path, List.of(result));
+        var read = BenchmarkResult.read(path);
+        assertThat(read, hasSize(1));
+        assertThat(read.get(0).id(), is("Bench/v"));
+        assertThat(read.get(0).metrics(), is(result.metrics()));
+    }
+
+    private static BenchmarkResult.Metric metric(boolean higherIsBetter, double... samples) {
+        return new BenchmarkResult("Bench", "v").metric("m", "us", higherIsBetter, samples).metrics().get(0);
+    }
+
+    private static BaselineComparator.Verdict verdict(BaselineComparator.Report report, String metric) {
+        return report.comparisons().stream().filter(c -> c.metric().equals(metric)).findFirst().orElseThrow().verdict();
+    }
+}
@@ -0,0 +1,218 @@
+package io.gingersnapproject.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.gingersnapproject.kubernetes.Util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * The machine-readable result of a benchmark run, written as JSON to
+ * {@code test-output/results/<benchmark>-<variant>.json} so that runs can be compared by {@link BaselineComparator}.
+ * <p>
+ * A result holds the metrics measured by the run, the parameters of the benchmark, the environment it ran in and the
+ * spec of the custom resources it created. A metric holds one sample per repetition, so that the comparison of two
+ * runs can take the variance of the samples into account.
+ */
+public class BenchmarkResult {
+
+    public static final Path OUTPUT_DIR = Benchmarks.OUTPUT_DIR.resolveSibling("results");
+    static final Gson GSON = new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create();
+
+    /**
+     * @param unit           e.g. {@code us}, {@code ms}, {@code 1/s} or {@code bytes}
+     * @param higherIsBetter whether an increase of the metric is an improvement, e.g. for a throughput
+     */
+    public record Metric(String name, String unit, boolean higherIsBetter, List<Double> samples) {
+
+        public double mean() {
+            return samples.stream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN);
+        }
+
+        /**
+         * @return the sample variance, 0 with less than two samples
+         */
+        public double variance() {
+            if (samples.size() < 2)
+                return 0;
+            var mean = mean();
+            return samples.stream().mapToDouble(s -> (s - mean) * (s - mean)).sum() / (samples.size() - 1);
+        }
+    }
+
+    final String benchmark;
+    final String variant;
+    final String timestamp = Instant.now().toString();
+    final Map<String, String> parameters = new LinkedHashMap<>();
+    final Map<String, String> environment = new LinkedHashMap<>();
+    final Map<String, JsonElement> resources = new LinkedHashMap<>();
+    final List<Metric> metrics = new ArrayList<>();
+
+    public BenchmarkResult(String benchmark, String variant) {
+        this.benchmark = benchmark;
+        this.variant = variant;
+    }
+
+    public String benchmark() {
+        return benchmark;
+    }
+
+    public String variant() {
+        return variant;
+    }
+
+    public List<Metric> metrics() {
+        return metrics;
+    }
+
+    public String id() {
+        return benchmark + "/" + variant;
+    }
+
+    public BenchmarkResult parameter(String name, Object value) {
+        parameters.put(name, String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Adds the samples to the metric, creating it on its first use.
+     */
+    public BenchmarkResult metric(String name, String unit, boolean higherIsBetter, double... samples) {
+        var metric = metrics.stream().filter(m -> m.name().equals(name)).findFirst().orElse(null);
+        if (metric == null) {
+            metric = new Metric(name, unit, higherIsBetter, new ArrayList<>());
+            metrics.add(metric);
+        }
+        for (var sample : samples)
+            metric.samples().add(sample);
+        return this;
+    }
+
+    public BenchmarkResult throughput(String name, double perSecond) {
+        return metric(name, "1/s", true, perSecond);
+    }
+
+    public BenchmarkResult millis(String name, double millis) {
+        return metric(name, "ms", false, millis);
+    }
+
+    /**
+     * Adds the {@code .p50}, {@code .p99}, {@code .p99.9} and {@code .mean} metrics of the latency.
+     */
+    public BenchmarkResult latency(String name, Latency latency) {
+        metric(name + ".p50", "us", false, latency.p50());
+        metric(name + ".p99", "us", false, latency.p99());
+        metric(name + ".p99.9", "us", false, latency.p999());
+        return metric(name + ".mean", "us", false, latency.mean());
+    }
+
+    /**
+     * Adds the latency metrics of every operation of the probe, e.g. {@code update_propagation.p99}.
+     */
+    public BenchmarkResult propagation(PropagationProbe.Result propagation) {
+        propagation.latencies().forEach((operation, histogram) ->
+                latency(operation.name().toLowerCase() + "_propagation", Latency.of(histogram)));
+        return this;
+    }
+
+    /**
+     * Records the spec of the resource, e.g. the {@code Cache} and its rules.
+     */
+    public BenchmarkResult resource(HasMetadata resource) {
+        var json = JsonParser.parseString(Serialization.asJson(resource)).getAsJsonObject();
+        resources.put(resource.getKind() + "/" + resource.getMetadata().getName(), json.get("spec"));
+        return this;
+    }
+
+    /**
+     * Records the test JVM, the Kubernetes version and the images of the pods of the namespace.
+     */
+    public BenchmarkResult environment(KubernetesClient k8s, String namespace) {
+        environment.put("java.version", System.getProperty("java.version"));
+        environment.put("java.vm", System.getProperty("java.vm.name"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        environment.put("processors", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        environment.put("max.heap", Long.toString(Runtime.getRuntime().maxMemory()));
+        environment.put("execution", Util.LOCAL_TEST_EXECUTION ? "local" : "in-cluster");
+        var commit = System.getenv("GITHUB_SHA");
+        if (commit != null)
+            environment.put("commit", commit);
+        try {
+            environment.put("kubernetes", k8s.getKubernetesVersion().getGitVersion());
+            var images = new TreeSet<String>();
+            k8s.pods().inNamespace(namespace).list().getItems().forEach(pod ->
+                    pod.getSpec().getContainers().forEach(container -> images.add(container.getImage())));
+            environment.put("images", String.join(",", images));
+        } catch (RuntimeException e) {
+            System.out.printf("Unable to describe the Kubernetes environment: %s\n", e);
+        }
+        return this;
+    }
+
+    public Path write() {
+        var fileName = (benchmark + "-" + variant).replaceAll("[^A-Za-z0-9._-]+", "_") + ".json";
+        try {
+            Files.createDirectories(OUTPUT_DIR);
+            var path = OUTPUT_DIR.resolve(fileName);
+            Files.writeString(path, GSON.toJson(this));
+            return path;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void write(Path path, List<BenchmarkResult> results) {
+        try {
+            Files.writeString(path, GSON.toJson(results));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param path a file holding a result or an array of results, or a directory of such files
+     */
+    public static List<BenchmarkResult> read(Path path) {
+        try {
+            if (Files.isDirectory(path)) {
+                try (var files = Files.list(path)) {
+                    return files.filter(file -> file.toString().endsWith(".json"))
+                            .sorted()
+                            .flatMap(file -> read(file).stream())
+                            .collect(Collectors.toList());
+                }
+            }
+            var json = JsonParser.parseString(Files.readString(path));
+            if (json.isJsonArray())
+                return GSON.fromJson(json, new TypeToken<List<BenchmarkResult>>() {}.getType());
+            return List.of(GSON.fromJson(json, BenchmarkResult.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return id() + " " + metrics.stream()
+                .map(m -> String.format("%s=%s%s", m.name(), m.samples().size() == 1 ? String.format("%.1f", m.mean()) :
+                        Arrays.toString(m.samples().stream().mapToDouble(Double::doubleValue).toArray()), m.unit()))
+                .collect(Collectors.joining(" "));
+    }
+}
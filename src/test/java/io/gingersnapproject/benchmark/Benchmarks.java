@@ -0,0 +1,77 @@
+package io.gingersnapproject.benchmark;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared helpers for benchmarks. Tunables are read from system properties prefixed with {@code gingersnap.benchmark.},
+ * e.g. {@code mvn test -Pbenchmark -Dgingersnap.benchmark.workers=32}.
+ */
+public class Benchmarks {
+
+    public static final String PROPERTY_PREFIX = "gingersnap.benchmark.";
+    public static final Path OUTPUT_DIR = Paths.get(System.getProperty(PROPERTY_PREFIX + "output", "test-output"), "benchmarks");
+
+    private Benchmarks() {
+    }
+
+    public static int intProperty(String name, int defaultValue) {
+        return Integer.getInteger(PROPERTY_PREFIX + name, defaultValue);
+    }
+
+    /**
+     * @return the comma separated values of the property, e.g. {@code -Dgingersnap.benchmark.rows=1000,10000}
+     */
+    public static long[] longsProperty(String name, String defaultValue) {
+        return Arrays.stream(System.getProperty(PROPERTY_PREFIX + name, defaultValue).split(","))
+                .map(String::trim)
+                .mapToLong(Long::parseLong)
+                .toArray();
+    }
+
+    public static Duration millisProperty(String name, long defaultMillis) {
+        return Duration.ofMillis(Long.getLong(PROPERTY_PREFIX + name, defaultMillis));
+    }
+
+    public static Duration secondsProperty(String name, long defaultSeconds) {
+        return Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + name, defaultSeconds));
+    }
+
+    /**
+     * @return a histogram for latencies recorded in microseconds, tracking values of up to one hour
+     */
+    public static Histogram histogram() {
+        return new Histogram(TimeUnit.HOURS.toMicros(1), 3);
+    }
+
+    public static ThreadFactory threadFactory(String prefix) {
+        var counter = new AtomicInteger();
+        return r -> {
+            var thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static Path write(String fileName, String content) {
+        try {
+            Files.createDirectories(OUTPUT_DIR);
+            var path = OUTPUT_DIR.resolve(fileName);
+            Files.writeString(path, content);
+            System.out.printf("Benchmark results written to '%s'\n", path);
+            return path;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
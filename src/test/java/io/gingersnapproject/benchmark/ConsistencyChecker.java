@@ -0,0 +1,221 @@
+package io.gingersnapproject.benchmark;
+
+import io.gingersnapproject.data.Customer;
+import io.gingersnapproject.gingersnap.GingersnapClient;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.gingersnapproject.kubernetes.Util.sleep;
+
+/**
+ * Compares the customer table with the entries of an eager rule keyed on {@code id} with the {@code fullname} and
+ * {@code email} value columns, holding at most {@link Options#batchSize()} rows or keys in memory.
+ * <p>
+ * The keys listed by {@code /rules/{rule}} are not ordered, so the two sides cannot be merged as sorted streams.
+ * Instead the check makes two passes: the table is streamed with a server side cursor and every batch of rows is
+ * looked up in the cache, which finds the missing and stale entries, then the keys are streamed from the cache and
+ * every batch is looked up in the table, which finds the extra entries.
+ */
+public class ConsistencyChecker {
+
+    static final String ROWS = "SELECT id, fullname, email FROM gingersnap." + Customer.TABLE_NAME;
+    static final String EXISTING = "SELECT id FROM gingersnap." + Customer.TABLE_NAME + " WHERE id IN (";
+
+    /**
+     * @param batchSize the number of rows or keys compared at once, at most 2000 as SQL Server limits the number of
+     *                  parameters of a statement
+     * @param samples   the maximum number of differences described in the report
+     * @param interval  the delay between two checks while awaiting convergence
+     * @param timeout   the maximum time to await convergence
+     */
+    public record Options(int batchSize, int samples, Duration interval, Duration timeout) {
+        public static Options fromProperties() {
+            return new Options(
+                    Benchmarks.intProperty("consistency.batch", 1000),
+                    Benchmarks.intProperty("consistency.samples", 10),
+                    Benchmarks.millisProperty("consistency.interval", 1000),
+                    Benchmarks.secondsProperty("consistency.timeout", 300)
+            );
+        }
+    }
+
+    /**
+     * @param rows    the number of rows in the table
+     * @param keys    the number of keys in the cache
+     * @param missing the number of rows absent from the cache
+     * @param extra   the number of keys absent from the table
+     * @param stale   the number of keys whose value differs from the row
+     * @param samples descriptions of the first differences
+     * @param checks  the number of checks performed
+     * @param elapsed the time until the last check completed
+     */
+    public record Report(long rows, long keys, long missing, long extra, long stale, List<String> samples, int checks,
+                         Duration elapsed) {
+
+        public boolean isConsistent() {
+            return missing == 0 && extra == 0 && stale == 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s after %d check(s) in %dms: rows=%d keys=%d missing=%d extra=%d stale=%d%s",
+                    isConsistent() ? "consistent" : "inconsistent", checks, elapsed.toMillis(), rows, keys, missing,
+                    extra, stale, samples.isEmpty() ? "" : "\n  " + String.join("\n  ", samples));
+        }
+    }
+
+    final GingersnapClient gingersnap;
+    final String rule;
+    final DataSource dataSource;
+    final Options options;
+
+    public ConsistencyChecker(GingersnapClient gingersnap, String rule, DataSource dataSource, Options options) {
+        if (options.batchSize() < 1 || options.batchSize() > 2000)
+            throw new IllegalArgumentException("batchSize must be between 1 and 2000");
+
+        this.gingersnap = gingersnap;
+        this.rule = rule;
+        this.dataSource = dataSource;
+        this.options = options;
+    }
+
+    public Report check() {
+        return check(System.nanoTime(), 1);
+    }
+
+    /**
+     * Repeats the check until the cache is consistent with the table or {@link Options#timeout()} elapses.
+     *
+     * @return the report of the last check, with the time elapsed since this method was called
+     */
+    public Report awaitConsistent() {
+        var start = System.nanoTime();
+        var deadline = start + options.timeout().toNanos();
+        for (int checks = 1; ; checks++) {
+            var report = check(start, checks);
+            if (report.isConsistent() || System.nanoTime() - deadline >= 0)
+                return report;
+            sleep(options.interval().toMillis());
+        }
+    }
+
+    private Report check(long start, int checks) {
+        var counts = new Counts();
+        try (var connection = dataSource.getConnection()) {
+            compareRows(connection, counts);
+            compareKeys(connection, counts);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return new Report(counts.rows, counts.keys, counts.missing, counts.extra, counts.stale,
+                Collections.unmodifiableList(counts.samples), checks, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private void compareRows(Connection connection, Counts counts) throws SQLException {
+        // MySQL's driver reads the whole result set unless the fetch size is Integer.MIN_VALUE, in which case rows are
+        // streamed one by one. SQL Server's driver streams rows with its default adaptive response buffering.
+        try (var stmt = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            var mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            stmt.setFetchSize(mysql ? Integer.MIN_VALUE : options.batchSize());
+            try (var rs = stmt.executeQuery(ROWS)) {
+                var batch = new LinkedHashMap<String, Customer>();
+                while (rs.next()) {
+                    batch.put(Long.toString(rs.getLong(1)), new Customer(rs.getString(2), rs.getString(3)));
+                    if (batch.size() == options.batchSize()) {
+                        compareValues(batch, counts);
+                        batch.clear();
+                    }
+                }
+                compareValues(batch, counts);
+            }
+        }
+    }
+
+    private void compareValues(Map<String, Customer> rows, Counts counts) {
+        if (rows.isEmpty())
+            return;
+
+        var values = gingersnap.getAll(rule, rows.keySet(), Customer.class).join();
+        rows.forEach((key, row) -> {
+            counts.rows++;
+            var value = values.get(key);
+            if (value == null) {
+                counts.missing++;
+                counts.sample("missing %s", key);
+            } else if (!value.equals(row)) {
+                counts.stale++;
+                counts.sample("stale %s: cache=%s table=%s", key, value, row);
+            }
+        });
+    }
+
+    private void compareKeys(Connection connection, Counts counts) throws SQLException {
+        try (var keys = gingersnap.streamKeys(rule)) {
+            var batch = new ArrayList<String>(options.batchSize());
+            var iterator = keys.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == options.batchSize()) {
+                    compareExistence(connection, batch, counts);
+                    batch.clear();
+                }
+            }
+            compareExistence(connection, batch, counts);
+        }
+    }
+
+    private void compareExistence(Connection connection, List<String> keys, Counts counts) throws SQLException {
+        if (keys.isEmpty())
+            return;
+
+        counts.keys += keys.size();
+        var ids = new ArrayList<Long>(keys.size());
+        for (var key : keys) {
+            try {
+                ids.add(Long.parseLong(key));
+            } catch (NumberFormatException e) {
+                counts.extra++;
+                counts.sample("extra %s", key);
+            }
+        }
+        if (ids.isEmpty())
+            return;
+
+        var sql = EXISTING + "?,".repeat(ids.size() - 1) + "?)";
+        var found = new HashSet<Long>();
+        try (var stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++)
+                stmt.setLong(i + 1, ids.get(i));
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next())
+                    found.add(rs.getLong(1));
+            }
+        }
+        for (var id : ids) {
+            if (!found.contains(id)) {
+                counts.extra++;
+                counts.sample("extra %d", id);
+            }
+        }
+    }
+
+    private class Counts {
+        long rows, keys, missing, extra, stale;
+        final List<String> samples = new ArrayList<>();
+
+        void sample(String format, Object... args) {
+            if (samples.size() < options.samples())
+                samples.add(String.format(format, args));
+        }
+    }
+}
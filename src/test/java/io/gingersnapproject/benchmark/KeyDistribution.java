@@ -0,0 +1,187 @@
+package io.gingersnapproject.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Chooses which of {@code items} keys or rows an operation accesses, shared by the read and write load generators.
+ * Implementations are safe to use from multiple threads and accept a different number of items on every call, as the
+ * number of rows changes while writing.
+ * <p>
+ * Distributions are described by a spec, e.g. {@code -Dgingersnap.benchmark.distributions=uniform,zipfian:0.99}:
+ * <ul>
+ *     <li>{@code uniform}: every item is equally likely</li>
+ *     <li>{@code zipfian[:theta]}: the item of rank {@code k} is accessed with a probability proportional to
+ *     {@code 1/k^theta}, the first item being the hottest. Defaults to a theta of 0.99</li>
+ *     <li>{@code hotspot[:hotItems[:hotOperations]]}: a fraction {@code hotOperations} of the operations access the
+ *     first {@code hotItems} fraction of the items uniformly. Defaults to 80% of the operations on 20% of the items</li>
+ *     <li>{@code sequential}: every item in turn, wrapping around</li>
+ *     <li>{@code latest[:theta]}: zipfian over the recency of the items, the last item being the hottest</li>
+ * </ul>
+ */
+public interface KeyDistribution {
+
+    String DEFAULT_SPECS = "uniform,zipfian:0.99,hotspot:0.2:0.8,sequential,latest:0.99";
+
+    /**
+     * @return an index between 0 inclusive and {@code items} exclusive
+     */
+    long next(long items);
+
+    /**
+     * @return a supplier of the keys {@code firstId} to {@code firstId + items - 1} following this distribution
+     */
+    default Supplier<String> keys(long firstId, long items) {
+        return () -> Long.toString(firstId + next(items));
+    }
+
+    static List<KeyDistribution> fromProperties() {
+        return Arrays.stream(System.getProperty(Benchmarks.PROPERTY_PREFIX + "distributions", DEFAULT_SPECS).split(","))
+                .map(KeyDistribution::parse)
+                .collect(Collectors.toList());
+    }
+
+    static KeyDistribution parse(String spec) {
+        var parts = spec.trim().split(":");
+        var args = Arrays.stream(parts).skip(1).mapToDouble(Double::parseDouble).toArray();
+        return switch (parts[0]) {
+            case "uniform" -> new Uniform();
+            case "zipfian" -> new Zipfian(args.length > 0 ? args[0] : 0.99);
+            case "hotspot" -> new Hotspot(args.length > 0 ? args[0] : 0.2, args.length > 1 ? args[1] : 0.8);
+            case "sequential" -> new Sequential();
+            case "latest" -> new Latest(new Zipfian(args.length > 0 ? args[0] : 0.99));
+            default -> throw new IllegalArgumentException("Unknown key distribution " + spec);
+        };
+    }
+
+    record Uniform() implements KeyDistribution {
+        @Override
+        public long next(long items) {
+            return ThreadLocalRandom.current().nextLong(items);
+        }
+
+        @Override
+        public String toString() {
+            return "uniform";
+        }
+    }
+
+    /**
+     * Samples with the rejection-inversion method of Hörmann and Derflinger, which takes constant time and memory
+     * whatever the number of items, instead of precomputing the zeta constant of YCSB's generator.
+     */
+    final class Zipfian implements KeyDistribution {
+
+        record Constants(long items, double hIntegralX1, double hIntegralItems, double s) {
+        }
+
+        final double theta;
+        volatile Constants constants;
+
+        Zipfian(double theta) {
+            if (theta <= 0)
+                throw new IllegalArgumentException("theta must be positive");
+            this.theta = theta;
+        }
+
+        @Override
+        public long next(long items) {
+            var c = constants;
+            if (c == null || c.items != items)
+                constants = c = new Constants(items, hIntegral(1.5) - 1, hIntegral(items + 0.5), 2 - hIntegralInverse(hIntegral(2.5) - h(2)));
+
+            var random = ThreadLocalRandom.current();
+            while (true) {
+                var u = c.hIntegralItems + random.nextDouble() * (c.hIntegralX1 - c.hIntegralItems);
+                var x = hIntegralInverse(u);
+                var k = Math.min(Math.max((long) (x + 0.5), 1), items);
+                if (k - x <= c.s || u >= hIntegral(k + 0.5) - h(k))
+                    return k - 1;
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-theta * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            var logX = Math.log(x);
+            return helper2((1 - theta) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            var t = Math.max(x * (1 - theta), -1);
+            return Math.exp(helper1(t) * x);
+        }
+
+        /**
+         * @return {@code log(1 + x) / x}, accurate for small values of x
+         */
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1 / 3.0 - 0.25 * x));
+        }
+
+        /**
+         * @return {@code (exp(x) - 1) / x}, accurate for small values of x
+         */
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+        }
+
+        @Override
+        public String toString() {
+            return "zipfian:" + theta;
+        }
+    }
+
+    record Hotspot(double hotItems, double hotOperations) implements KeyDistribution {
+        public Hotspot {
+            if (hotItems <= 0 || hotItems > 1 || hotOperations < 0 || hotOperations > 1)
+                throw new IllegalArgumentException("Fractions must be between 0 and 1");
+        }
+
+        @Override
+        public long next(long items) {
+            var random = ThreadLocalRandom.current();
+            var hot = Math.max(1, (long) (items * hotItems));
+            if (hot == items || random.nextDouble() < hotOperations)
+                return random.nextLong(hot);
+            return hot + random.nextLong(items - hot);
+        }
+
+        @Override
+        public String toString() {
+            return "hotspot:" + hotItems + ":" + hotOperations;
+        }
+    }
+
+    final class Sequential implements KeyDistribution {
+        final AtomicLong counter = new AtomicLong();
+
+        @Override
+        public long next(long items) {
+            return Math.floorMod(counter.getAndIncrement(), items);
+        }
+
+        @Override
+        public String toString() {
+            return "sequential";
+        }
+    }
+
+    record Latest(Zipfian recency) implements KeyDistribution {
+        @Override
+        public long next(long items) {
+            return items - 1 - recency.next(items);
+        }
+
+        @Override
+        public String toString() {
+            return "latest:" + recency.theta;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.gingersnapproject.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class KeyDistributionTest {
+
+    static final int ITEMS = 1000;
+    static final int SAMPLES = 100_000;
+
+    @Test
+    public void testBounds() {
+        for (var distribution : KeyDistribution.fromProperties()) {
+            for (long items : new long[]{1, 2, ITEMS}) {
+                for (int i = 0; i < 10_000; i++) {
+                    assertThat(distribution.toString(), distribution.next(items), allOf(greaterThanOrEqualTo(0L), lessThan(items)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testZipfian() {
+        var counts = sample(KeyDistribution.parse("zipfian:0.99"));
+        // With theta=0.99 the hottest of 1000 items takes ~13% of the accesses, the second half of the items ~9%
+        assertThat(counts[0], greaterThan(SAMPLES / 10L));
+        assertThat(counts[0], greaterThan(counts[1]));
+        assertThat(LongStream.of(counts).skip(ITEMS / 2).sum(), lessThan(SAMPLES / 8L));
+    }
+
+    @Test
+    public void testLatest() {
+        var counts = sample(KeyDistribution.parse("latest"));
+        assertThat(counts[ITEMS - 1], greaterThan(SAMPLES / 10L));
+        assertThat(LongStream.of(counts).limit(ITEMS / 2).sum(), lessThan(SAMPLES / 8L));
+    }
+
+    @Test
+    public void testHotspot() {
+        var counts = sample(KeyDistribution.parse("hotspot:0.2:0.8"));
+        var hot = LongStream.of(counts).limit(ITEMS / 5).sum();
+        assertThat((double) hot / SAMPLES, closeTo(0.8, 0.02));
+    }
+
+    @Test
+    public void testSequential() {
+        var distribution = KeyDistribution.parse("sequential");
+        for (long i = 0; i < 25; i++)
+            assertThat(distribution.next(10), is(i % 10));
+    }
+
+    private static long[] sample(KeyDistribution distribution) {
+        var counts = new long[ITEMS];
+        for (int i = 0; i < SAMPLES; i++)
+            counts[(int) distribution.next(ITEMS)]++;
+        return counts;
+    }
+}
@@ -0,0 +1,31 @@
+package io.gingersnapproject.benchmark;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Summary of a latency distribution. All values are in microseconds.
+ */
+public record Latency(long count, double mean, long p50, long p99, long p999, long max) {
+
+    public static final String CSV_HEADER = "count,mean_us,p50_us,p99_us,p99.9_us,max_us";
+
+    public static Latency of(Histogram histogram) {
+        return new Latency(
+                histogram.getTotalCount(),
+                histogram.getMean(),
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue()
+        );
+    }
+
+    public String toCsv() {
+        return String.format("%d,%.1f,%d,%d,%d,%d", count, mean, p50, p99, p999, max);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fus p50=%dus p99=%dus p99.9=%dus max=%dus", count, mean, p50, p99, p999, max);
+    }
+}
@@ -0,0 +1,177 @@
+package io.gingersnapproject.benchmark;
+
+import io.gingersnapproject.data.Customer;
+import io.gingersnapproject.database.Database;
+import io.gingersnapproject.gingersnap.GingersnapClient;
+import org.HdrHistogram.Histogram;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures how long it takes for a change committed to the database to be visible through an eager rule.
+ * <p>
+ * Writes are issued from the calling thread at a steady rate, in three consecutive phases: insert {@code samples}
+ * customers, update each of them and finally delete them. The time at which each write's transaction committed is
+ * recorded and a poller then queries {@code /rules/{rule}/{key}} every {@link Options#pollInterval()} until the change
+ * is observed, so the resolution of the measurement is the poll interval plus one request round trip.
+ * <p>
+ * The rows are written with JDBC and ids starting at {@link Options#firstId()} rather than through JPA, whose
+ * {@code increment} generator reads the highest id once and would then collide with the ids of a
+ * {@link WriteLoadGenerator} running at the same time.
+ */
+public class PropagationProbe implements AutoCloseable {
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+
+    /**
+     * @param samples      the number of writes of each operation
+     * @param rate         the number of writes per second
+     * @param pollInterval the delay between two reads of the same key
+     * @param timeout      the time after which a change that has not been observed is counted as a timeout
+     * @param firstId      the id of the first inserted row, below {@link WriteLoadGenerator.Options#firstId()} and
+     *                     above the ids allocated by JPA
+     */
+    public record Options(int samples, int rate, Duration pollInterval, Duration timeout, long firstId) {
+        public static Options fromProperties() {
+            return new Options(
+                    Benchmarks.intProperty("propagation.samples", 30),
+                    Benchmarks.intProperty("propagation.rate", 5),
+                    Benchmarks.millisProperty("propagation.poll", 5),
+                    Benchmarks.secondsProperty("propagation.timeout", 60),
+                    Long.getLong(Benchmarks.PROPERTY_PREFIX + "propagation.first-id", 1L << 29)
+            );
+        }
+    }
+
+    public record Result(Map<Operation, Histogram> latencies, Map<Operation, Long> timeouts) {
+
+        public String toCsv() {
+            var sb = new StringBuilder("operation,timeouts,").append(Latency.CSV_HEADER).append('\n');
+            latencies.forEach((op, histogram) ->
+                    sb.append(op).append(',').append(timeouts.get(op)).append(',').append(Latency.of(histogram).toCsv()).append('\n'));
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return latencies.entrySet().stream()
+                    .map(e -> String.format("%s: timeouts=%d %s", e.getKey(), timeouts.get(e.getKey()), Latency.of(e.getValue())))
+                    .collect(Collectors.joining("\n"));
+        }
+    }
+
+    final GingersnapClient gingersnap;
+    final String rule;
+    final Database db;
+    final Options options;
+    final ExecutorService pollers = Executors.newCachedThreadPool(Benchmarks.threadFactory("propagation-poller"));
+    final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    final Map<Operation, LongAdder> timeouts = new EnumMap<>(Operation.class);
+
+    public PropagationProbe(GingersnapClient gingersnap, String rule, Database db, Options options) {
+        this.gingersnap = gingersnap;
+        this.rule = rule;
+        this.db = db;
+        this.options = options;
+        for (var op : Operation.values()) {
+            latencies.put(op, Benchmarks.histogram());
+            timeouts.put(op, new LongAdder());
+        }
+    }
+
+    public Result run() {
+        var customers = IntStream.range(0, options.samples())
+                .mapToObj(i -> new Customer(options.firstId() + i, "Probe " + i, String.format("probe%d@example.com", i)))
+                .collect(Collectors.toList());
+
+        Predicate<Customer> present = c -> c.equals(gingersnap.get(rule, Long.toString(c.getId()), Customer.class));
+        phase(Operation.INSERT, customers,
+                c -> execute(WriteLoadGenerator.INSERT, c.getId(), c.getFullname(), c.getEmail()), present);
+        phase(Operation.UPDATE, customers, c -> {
+            c.setEmail("updated." + c.getEmail());
+            execute(WriteLoadGenerator.UPDATE, c.getEmail(), c.getId());
+        }, present);
+        phase(Operation.DELETE, customers, c -> execute(WriteLoadGenerator.DELETE, c.getId()),
+                c -> gingersnap.get(rule, Long.toString(c.getId())) == null);
+
+        var timeoutCounts = new EnumMap<Operation, Long>(Operation.class);
+        timeouts.forEach((op, count) -> timeoutCounts.put(op, count.sum()));
+        return new Result(latencies, timeoutCounts);
+    }
+
+    private void phase(Operation operation, List<Customer> customers, Consumer<Customer> write, Predicate<Customer> propagated) {
+        var intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        var next = System.nanoTime();
+        var pending = new ArrayList<Future<?>>(customers.size());
+        for (var customer : customers) {
+            // Hold the write rate steady, independently of how long the previous changes take to propagate
+            long wait;
+            while ((wait = next - System.nanoTime()) > 0)
+                LockSupport.parkNanos(wait);
+            next += intervalNanos;
+
+            write.accept(customer);
+            var committed = System.nanoTime();
+            pending.add(pollers.submit(() -> await(operation, committed, customer, propagated)));
+        }
+        try {
+            for (var future : pending)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void execute(String sql, Object... parameters) {
+        try (var connection = db.dataSource().getConnection();
+             var stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++)
+                stmt.setObject(i + 1, parameters[i]);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void await(Operation operation, long committed, Customer customer, Predicate<Customer> propagated) {
+        var deadline = committed + options.timeout().toNanos();
+        while (!propagated.test(customer)) {
+            if (System.nanoTime() - deadline > 0) {
+                timeouts.get(operation).increment();
+                return;
+            }
+            LockSupport.parkNanos(options.pollInterval().toNanos());
+        }
+        var latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - committed);
+        var histogram = latencies.get(operation);
+        synchronized (histogram) {
+            histogram.recordValue(latency);
+        }
+    }
+
+    @Override
+    public void close() {
+        pollers.shutdownNow();
+    }
+}
@@ -0,0 +1,160 @@
+package io.gingersnapproject.benchmark;
+
+import io.gingersnapproject.gingersnap.GingersnapClient;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Drives {@code GET /rules/{rule}/{key}} requests from a number of concurrent workers.
+ * <p>
+ * In closed loop mode ({@link Options#rate()} {@code == 0}) every worker issues its next request as soon as the previous
+ * one completes, measuring the maximum throughput. In open loop mode the requests are issued at a fixed aggregate rate
+ * and latency is measured from the time a request was scheduled to be sent, so that a stalled server is not hidden by
+ * the workers backing off (coordinated omission).
+ */
+public class ReadLoadGenerator {
+
+    /**
+     * Performs a single read, returning the value or {@code null} if the key does not exist.
+     */
+    @FunctionalInterface
+    public interface Reader {
+        String read(String key) throws Exception;
+    }
+
+    /**
+     * @param workers  the number of concurrent workers
+     * @param rate     the aggregate number of requests per second, or 0 to run in closed loop mode
+     * @param warmup   the time to generate load before latencies are recorded
+     * @param duration the time to record latencies for
+     */
+    public record Options(int workers, int rate, Duration warmup, Duration duration) {
+
+        public static Options closedLoop(int workers, Duration duration) {
+            return new Options(workers, 0, Duration.ZERO, duration);
+        }
+
+        public static Options openLoop(int workers, int rate, Duration duration) {
+            return new Options(workers, rate, Duration.ZERO, duration);
+        }
+
+        public static Options fromProperties() {
+            return new Options(
+                    Benchmarks.intProperty("workers", 16),
+                    Benchmarks.intProperty("rate", 0),
+                    Benchmarks.secondsProperty("warmup", 10),
+                    Benchmarks.secondsProperty("duration", 30)
+            );
+        }
+
+        public Options withWarmup(Duration warmup) {
+            return new Options(workers, rate, warmup, duration);
+        }
+
+        public boolean isOpenLoop() {
+            return rate > 0;
+        }
+    }
+
+    final Reader reader;
+    final Supplier<String> keys;
+    final Options options;
+
+    /**
+     * @param keys supplies the key of the next request, must be safe to call from multiple threads
+     */
+    public ReadLoadGenerator(GingersnapClient client, String rule, Supplier<String> keys, Options options) {
+        this(key -> client.get(rule, key), keys, options);
+    }
+
+    public ReadLoadGenerator(Reader reader, Supplier<String> keys, Options options) {
+        if (options.workers() < 1)
+            throw new IllegalArgumentException("At least one worker is required");
+
+        this.reader = reader;
+        this.keys = keys;
+        this.options = options;
+    }
+
+    public ReadLoadResult run() {
+        var recorder = new Recorder(3);
+        var requests = new LongAdder();
+        var misses = new LongAdder();
+        var errors = new LongAdder();
+        var errorLogged = new AtomicBoolean();
+
+        var workers = options.workers();
+        var intervalNanos = options.isOpenLoop() ? TimeUnit.SECONDS.toNanos(workers) / options.rate() : 0;
+        var start = System.nanoTime();
+        var measureStart = start + options.warmup().toNanos();
+        var end = measureStart + options.duration().toNanos();
+
+        var executor = Executors.newFixedThreadPool(workers, Benchmarks.threadFactory("gingersnap-reader"));
+        try {
+            var futures = new ArrayList<Future<?>>(workers);
+            for (int i = 0; i < workers; i++) {
+                // Stagger the open loop workers so that requests are evenly spread over each interval
+                var firstRequest = start + intervalNanos * i / workers;
+                futures.add(executor.submit(() -> {
+                    var next = firstRequest;
+                    while (true) {
+                        long intended;
+                        if (intervalNanos > 0) {
+                            intended = next;
+                            next += intervalNanos;
+                            long wait;
+                            while ((wait = intended - System.nanoTime()) > 0)
+                                LockSupport.parkNanos(wait);
+                        } else {
+                            intended = System.nanoTime();
+                        }
+                        if (intended - end >= 0)
+                            return;
+
+                        boolean miss = false, error = false;
+                        try {
+                            miss = reader.read(keys.get()) == null;
+                        } catch (Throwable t) {
+                            error = true;
+                            if (errorLogged.compareAndSet(false, true)) {
+                                System.out.printf("Read failed: %s\n", t);
+                            }
+                        }
+                        var latencyNanos = System.nanoTime() - intended;
+                        if (intended - measureStart < 0)
+                            continue;
+
+                        requests.increment();
+                        if (error) {
+                            errors.increment();
+                        } else {
+                            if (miss) misses.increment();
+                            recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+                        }
+                    }
+                }));
+            }
+            for (var future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        var elapsed = Duration.ofNanos(Math.max(System.nanoTime(), end) - measureStart);
+        return new ReadLoadResult(options, requests.sum(), misses.sum(), errors.sum(), elapsed, recorder.getIntervalHistogram());
+    }
+}
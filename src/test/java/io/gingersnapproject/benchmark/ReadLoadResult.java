@@ -0,0 +1,29 @@
+package io.gingersnapproject.benchmark;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+
+/**
+ * The outcome of a {@link ReadLoadGenerator} run. Only requests issued after the warmup are accounted for, the
+ * {@code histogram} contains the latencies of successful requests in microseconds.
+ */
+public record ReadLoadResult(ReadLoadGenerator.Options options, long requests, long misses, long errors,
+                             Duration elapsed, Histogram histogram) {
+
+    public double throughput() {
+        return requests * 1e9 / elapsed.toNanos();
+    }
+
+    public Latency latency() {
+        return Latency.of(histogram);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("workers=%d mode=%s requests=%d misses=%d errors=%d throughput=%.1freq/s latency[%s]",
+                options.workers(),
+                options.isOpenLoop() ? "open(" + options.rate() + "req/s)" : "closed",
+                requests, misses, errors, throughput(), latency());
+    }
+}
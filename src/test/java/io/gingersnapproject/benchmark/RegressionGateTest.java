@@ -0,0 +1,41 @@
+package io.gingersnapproject.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Fails if the results in {@code test-output/results} regressed against a baseline, e.g. after a benchmark run:
+ * <pre>
+ * mvn test -Dtest=RegressionGateTest -Dgingersnap.benchmark.baseline=baseline.json
+ * </pre>
+ * Writes the comparison to {@code test-output/benchmarks/regression-report.md} and the current results to
+ * {@code test-output/benchmarks/baseline-candidate.json}, to replace the baseline with once reviewed. Skipped when no
+ * baseline is given.
+ */
+public class RegressionGateTest {
+
+    static final String BASELINE = System.getProperty(Benchmarks.PROPERTY_PREFIX + "baseline");
+    static final Path RESULTS = Paths.get(System.getProperty(Benchmarks.PROPERTY_PREFIX + "results", BenchmarkResult.OUTPUT_DIR.toString()));
+
+    @Test
+    public void testNoRegression() throws Exception {
+        assumeTrue(BASELINE != null, "No baseline given with -D" + Benchmarks.PROPERTY_PREFIX + "baseline");
+        assumeTrue(Files.isDirectory(RESULTS), "No results in " + RESULTS);
+
+        var current = BenchmarkResult.read(RESULTS);
+        var report = BaselineComparator.compare(BenchmarkResult.read(Paths.get(BASELINE)), current,
+                BaselineComparator.Options.fromProperties());
+        var markdown = report.toMarkdown();
+        System.out.println(markdown);
+        Benchmarks.write("regression-report.md", markdown);
+        BenchmarkResult.write(Files.createDirectories(Benchmarks.OUTPUT_DIR).resolve("baseline-candidate.json"), current);
+        assertThat(markdown, report.regressions(), empty());
+    }
+}
@@ -0,0 +1,85 @@
+package io.gingersnapproject.benchmark;
+
+import io.gingersnap_project.v1alpha1.Cache;
+import io.gingersnap_project.v1alpha1.cachespec.DbSyncer;
+import io.gingersnap_project.v1alpha1.cachespec.Deployment;
+import io.gingersnap_project.v1alpha1.cachespec.dbsyncer.resources.Limits;
+import io.gingersnap_project.v1alpha1.cachespec.dbsyncer.resources.Requests;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The resources of the cache and db-syncer containers of a {@link Cache}. Requests are set equal to the limits, so
+ * that the pods have the Guaranteed QoS class and are not throttled by their neighbours.
+ *
+ * @param replicas the number of pods of a {@code CLUSTER} deployment, or 0 to keep the default deployment type
+ */
+public record ResourceProfile(String name, String cacheCpu, String cacheMemory, String syncerCpu, String syncerMemory,
+                              int replicas) {
+
+    static final Pattern SPEC = Pattern.compile("([^=]+)=([^/]+)/([^,]+),([^/]+)/([^,]+)(?:,(\\d+))?");
+
+    /**
+     * @param spec {@code name=cacheCpu/cacheMemory,syncerCpu/syncerMemory[,replicas]}, e.g. {@code small=500m/512Mi,250m/256Mi}
+     */
+    public static ResourceProfile parse(String spec) {
+        var matcher = SPEC.matcher(spec.trim());
+        if (!matcher.matches())
+            throw new IllegalArgumentException("Expected name=cacheCpu/cacheMemory,syncerCpu/syncerMemory[,replicas]: " + spec);
+        return new ResourceProfile(matcher.group(1), matcher.group(2), matcher.group(3), matcher.group(4), matcher.group(5),
+                matcher.group(6) == null ? 0 : Integer.parseInt(matcher.group(6)));
+    }
+
+    /**
+     * @return the {@code ;} separated profiles of {@code -Dgingersnap.benchmark.profiles}
+     */
+    public static List<ResourceProfile> fromProperties() {
+        return Arrays.stream(System.getProperty(Benchmarks.PROPERTY_PREFIX + "profiles",
+                        "small=500m/512Mi,250m/256Mi;medium=1/1Gi,500m/512Mi;large=2/2Gi,1/1Gi;xlarge=4/4Gi,2/2Gi").split(";"))
+                .map(ResourceProfile::parse)
+                .collect(Collectors.toList());
+    }
+
+    public Cache apply(Cache cache) {
+        var spec = cache.getSpec();
+
+        var cacheLimits = new io.gingersnap_project.v1alpha1.cachespec.deployment.resources.Limits();
+        cacheLimits.setCpu(cacheCpu);
+        cacheLimits.setMemory(cacheMemory);
+        var cacheRequests = new io.gingersnap_project.v1alpha1.cachespec.deployment.resources.Requests();
+        cacheRequests.setCpu(cacheCpu);
+        cacheRequests.setMemory(cacheMemory);
+        var cacheResources = new io.gingersnap_project.v1alpha1.cachespec.deployment.Resources();
+        cacheResources.setLimits(cacheLimits);
+        cacheResources.setRequests(cacheRequests);
+        var deployment = spec.getDeployment() == null ? new Deployment() : spec.getDeployment();
+        deployment.setResources(cacheResources);
+        if (replicas > 0) {
+            deployment.setType(Deployment.Type.CLUSTER);
+            deployment.setReplicas(replicas);
+        }
+        spec.setDeployment(deployment);
+
+        var syncerLimits = new Limits();
+        syncerLimits.setCpu(syncerCpu);
+        syncerLimits.setMemory(syncerMemory);
+        var syncerRequests = new Requests();
+        syncerRequests.setCpu(syncerCpu);
+        syncerRequests.setMemory(syncerMemory);
+        var syncerResources = new io.gingersnap_project.v1alpha1.cachespec.dbsyncer.Resources();
+        syncerResources.setLimits(syncerLimits);
+        syncerResources.setRequests(syncerRequests);
+        var dbSyncer = spec.getDbSyncer() == null ? new DbSyncer() : spec.getDbSyncer();
+        dbSyncer.setResources(syncerResources);
+        spec.setDbSyncer(dbSyncer);
+        return cache;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,400 @@
+package io.gingersnapproject.benchmark;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.gingersnap_project.v1alpha1.Cache;
+import io.gingersnap_project.v1alpha1.EagerCacheRule;
+import io.gingersnap_project.v1alpha1.LazyCacheRule;
+import io.gingersnap_project.v1alpha1.eagercacherulespec.Key;
+import io.gingersnapproject.data.TableSchema;
+import io.gingersnapproject.database.Database;
+import io.gingersnapproject.gingersnap.GingersnapClient;
+import io.gingersnapproject.kubernetes.Util;
+import io.gingersnapproject.kubernetes.Waits;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Creates, modifies and deletes {@link EagerCacheRule}s and {@link LazyCacheRule}s on a table at a fixed rate, and
+ * measures how long every change takes to be reflected in the status of the rule and in the responses of the cache.
+ * <p>
+ * The generator manages {@link Options#rules()} rules, eager and lazy in turn. Every operation picks a random rule
+ * without a change in progress, i.e. not yet reflected in the responses of the cache nor timed out: an absent rule is
+ * created, a present rule is deleted or modified, the value columns of both kinds and the key format of eager rules
+ * alternating. When every rule has a change in progress the operation is skipped, so the rate should leave time for
+ * changes to be reflected.
+ * <p>
+ * A change is reflected in the status when:
+ * <ul>
+ *     <li>a created rule is Ready</li>
+ *     <li>a modified rule is Ready in a later version than the one written by the modification, so this relies on
+ *     the operator writing the status of the rule it reconciled</li>
+ *     <li>a deleted rule is gone</li>
+ * </ul>
+ * and in the responses of the cache when row 1 of the table is served, with the columns and in the key format of the
+ * modification, or when {@code /rules/{rule}} no longer answers for a deleted rule. Both sides are tracked
+ * independently. Latencies are measured from the time the change was issued, a change not reflected on a side within
+ * {@link Options#timeout()} is a timeout of that side, and so is a status not reflected yet when the next change of
+ * the rule is issued, as it could no longer be told apart from the status of the next change.
+ */
+public class RuleChurnGenerator {
+
+    public enum Operation {
+        CREATE, MODIFY_VALUE, MODIFY_KEY, DELETE
+    }
+
+    /**
+     * @param rules        the number of rules managed
+     * @param operations   the number of operations to issue
+     * @param rate         the number of operations issued per second
+     * @param pollInterval the interval between the checks of the responses of the cache
+     * @param timeout      the time for a change to be reflected
+     */
+    public record Options(int rules, int operations, int rate, Duration pollInterval, Duration timeout) {
+
+        public static Options fromProperties() {
+            return new Options(
+                    Benchmarks.intProperty("churn.rules", 10),
+                    Benchmarks.intProperty("churn.operations", 200),
+                    Benchmarks.intProperty("churn.rate", 1),
+                    Benchmarks.millisProperty("churn.poll-interval", 50),
+                    Benchmarks.secondsProperty("churn.timeout", 120)
+            );
+        }
+
+        public Options withRate(int rate) {
+            return new Options(rules, operations, rate, pollInterval, timeout);
+        }
+    }
+
+    final KubernetesClient k8s;
+    final String namespace;
+    final Cache cache;
+    final TableSchema schema;
+    final Database db;
+    final GingersnapClient gingersnap;
+    final Options options;
+    final List<Slot> slots = new ArrayList<>();
+    // The changes not reflected in the responses of the cache yet, by rule
+    final Map<String, Change> pending = new ConcurrentHashMap<>();
+    // The changes not reflected in the status of their rule yet, by rule
+    final Map<String, Change> statusPending = new ConcurrentHashMap<>();
+    final Random random = new Random();
+    final Map<Operation, Histogram> status = histograms();
+    final Map<Operation, Histogram> responses = histograms();
+    final Map<Operation, AtomicLong> completed = counters();
+    final Map<Operation, AtomicLong> statusTimeouts = counters();
+    final Map<Operation, AtomicLong> responseTimeouts = counters();
+    final Map<Operation, AtomicLong> errors = counters();
+    final AtomicBoolean errorLogged = new AtomicBoolean();
+    final AtomicLong lastCompletion = new AtomicLong();
+
+    /**
+     * @param schema a table of at least two value columns, holding row 1
+     */
+    public RuleChurnGenerator(KubernetesClient k8s, String namespace, Cache cache, TableSchema schema, Database db,
+                              GingersnapClient gingersnap, Options options) {
+        if (options.rules() < 1 || options.rate() < 1)
+            throw new IllegalArgumentException("At least one rule and one operation per second are required");
+        if (schema.columns().size() < 2)
+            throw new IllegalArgumentException("At least two value columns are required in " + schema);
+
+        this.k8s = k8s;
+        this.namespace = namespace;
+        this.cache = cache;
+        this.schema = schema;
+        this.db = db;
+        this.gingersnap = gingersnap;
+        this.options = options;
+        for (int i = 0; i < options.rules(); i++)
+            slots.add(new Slot((i % 2 == 0 ? "churn-eager-" : "churn-lazy-") + i, i % 2 == 0));
+    }
+
+    public RuleChurnResult run() {
+        var informers = List.<SharedIndexInformer<?>>of(
+                k8s.resources(EagerCacheRule.class).inNamespace(namespace).inform(handler(Waits::isReady)),
+                k8s.resources(LazyCacheRule.class).inNamespace(namespace).inform(handler(Waits::isReady))
+        );
+        var poller = Executors.newSingleThreadScheduledExecutor(Benchmarks.threadFactory("rule-churn"));
+        var skipped = 0L;
+        var start = System.nanoTime();
+        try {
+            poller.scheduleWithFixedDelay(this::poll, 0, options.pollInterval().toMillis(), TimeUnit.MILLISECONDS);
+            var intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+            for (int i = 0; i < options.operations(); i++) {
+                var intended = start + i * intervalNanos;
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0)
+                    LockSupport.parkNanos(wait);
+                var slot = idleSlot();
+                if (slot == null)
+                    skipped++;
+                else
+                    issue(slot);
+            }
+            Util.pollUntil(() -> pending.isEmpty() && statusPending.isEmpty(), options.pollInterval(),
+                    options.timeout().plus(options.pollInterval().multipliedBy(2)));
+        } finally {
+            poller.shutdownNow();
+            informers.forEach(SharedIndexInformer::close);
+            try {
+                poller.awaitTermination(options.pollInterval().toMillis() + 30_000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        var last = lastCompletion.get();
+        var elapsed = Duration.ofNanos(last == 0 ? 0 : last - start);
+        return new RuleChurnResult(options, totals(completed), totals(statusTimeouts), totals(responseTimeouts),
+                totals(errors), skipped, elapsed, status, responses);
+    }
+
+    private Slot idleSlot() {
+        var idle = slots.stream().filter(slot -> !pending.containsKey(slot.name)).toArray(Slot[]::new);
+        return idle.length == 0 ? null : idle[random.nextInt(idle.length)];
+    }
+
+    private void issue(Slot slot) {
+        Operation op;
+        if (!slot.present) {
+            op = Operation.CREATE;
+        } else {
+            var choices = slot.eager ?
+                    new Operation[]{Operation.MODIFY_VALUE, Operation.MODIFY_KEY, Operation.DELETE} :
+                    new Operation[]{Operation.MODIFY_VALUE, Operation.DELETE};
+            op = choices[random.nextInt(choices.length)];
+        }
+        var change = new Change(op, slot, System.nanoTime());
+        try {
+            switch (op) {
+                case CREATE -> {
+                    track(change);
+                    slot.present = true;
+                    if (slot.eager)
+                        k8s.resource(eagerCacheRule(slot)).inNamespace(namespace).create();
+                    else
+                        k8s.resource(lazyCacheRule(slot)).inNamespace(namespace).create();
+                }
+                case MODIFY_VALUE, MODIFY_KEY -> {
+                    if (op == Operation.MODIFY_VALUE)
+                        slot.allColumns = !slot.allColumns;
+                    else
+                        slot.format = slot.format == Key.Format.TEXT ? Key.Format.JSON : Key.Format.TEXT;
+                    HasMetadata modified = slot.eager ?
+                            k8s.resources(EagerCacheRule.class).inNamespace(namespace).withName(slot.name).edit(rule -> {
+                                rule.getSpec().getKey().setFormat(slot.format);
+                                rule.getSpec().getValue().setValueColumns(slot.valueColumns(schema));
+                                return rule;
+                            }) :
+                            k8s.resources(LazyCacheRule.class).inNamespace(namespace).withName(slot.name).edit(rule -> {
+                                rule.getSpec().setQuery(lazyCacheRule(slot).getSpec().getQuery());
+                                return rule;
+                            });
+                    // Only the writes following the modification reflect its reconciliation
+                    change.resourceVersion = modified.getMetadata().getResourceVersion();
+                    track(change);
+                }
+                case DELETE -> {
+                    track(change);
+                    slot.present = false;
+                    if (slot.eager)
+                        k8s.resources(EagerCacheRule.class).inNamespace(namespace).withName(slot.name).delete();
+                    else
+                        k8s.resources(LazyCacheRule.class).inNamespace(namespace).withName(slot.name).delete();
+                }
+            }
+        } catch (RuntimeException e) {
+            // A change rejected by the API server, e.g. by a validating webhook, leaves the rule as it was
+            pending.remove(slot.name);
+            statusPending.remove(slot.name, change);
+            slot.revert(op);
+            errors.get(op).incrementAndGet();
+            if (errorLogged.compareAndSet(false, true))
+                System.out.printf("Rule %s failed on %s: %s\n", op, slot.name, e);
+        }
+    }
+
+    private void track(Change change) {
+        var previous = statusPending.put(change.slot.name, change);
+        if (previous != null)
+            statusTimeouts.get(previous.operation).incrementAndGet();
+        pending.put(change.slot.name, change);
+    }
+
+    private EagerCacheRule eagerCacheRule(Slot slot) {
+        var rule = schema.eagerCacheRule(slot.name, cache, slot.format, null);
+        rule.getSpec().getValue().setValueColumns(slot.valueColumns(schema));
+        return rule;
+    }
+
+    private LazyCacheRule lazyCacheRule(Slot slot) {
+        return Util.lazyCacheRule(slot.name, cache,
+                db.select(new LinkedHashSet<>(slot.valueColumns(schema)), schema.qualifiedName(), schema.keyColumnNames()));
+    }
+
+    private <T extends HasMetadata> ResourceEventHandler<T> handler(Predicate<T> ready) {
+        return new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(T rule) {
+                observed(rule, ready.test(rule), false);
+            }
+
+            @Override
+            public void onUpdate(T oldRule, T rule) {
+                observed(rule, ready.test(rule), false);
+            }
+
+            @Override
+            public void onDelete(T rule, boolean deletedFinalStateUnknown) {
+                observed(rule, false, true);
+            }
+        };
+    }
+
+    private void observed(HasMetadata rule, boolean ready, boolean deleted) {
+        var name = rule.getMetadata().getName();
+        var change = statusPending.get(name);
+        if (change == null)
+            return;
+        var reflected = switch (change.operation) {
+            case CREATE -> ready;
+            case MODIFY_VALUE, MODIFY_KEY -> ready && !rule.getMetadata().getResourceVersion().equals(change.resourceVersion);
+            case DELETE -> deleted;
+        };
+        // Removed first, so that a change timing out concurrently is not counted twice
+        if (reflected && statusPending.remove(name, change)) {
+            var now = System.nanoTime();
+            var histogram = status.get(change.operation);
+            // The eager and lazy rule informers may notify from different threads
+            synchronized (histogram) {
+                histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(now - change.issued));
+            }
+            finished(now);
+        }
+    }
+
+    private void poll() {
+        var timeoutNanos = options.timeout().toNanos();
+        for (var change : pending.values()) {
+            if (served(change)) {
+                var now = System.nanoTime();
+                responses.get(change.operation).recordValue(TimeUnit.NANOSECONDS.toMicros(now - change.issued));
+                completed.get(change.operation).incrementAndGet();
+                finished(now);
+            } else if (System.nanoTime() - change.issued > timeoutNanos) {
+                responseTimeouts.get(change.operation).incrementAndGet();
+                finished(System.nanoTime());
+            } else {
+                continue;
+            }
+            // Frees the rule for the next change, whether its status is reflected or not
+            pending.remove(change.slot.name);
+        }
+        for (var change : statusPending.values()) {
+            var now = System.nanoTime();
+            if (now - change.issued > timeoutNanos && statusPending.remove(change.slot.name, change)) {
+                statusTimeouts.get(change.operation).incrementAndGet();
+                finished(now);
+            }
+        }
+    }
+
+    private void finished(long now) {
+        lastCompletion.accumulateAndGet(now, (last, time) -> last == 0 || time - last > 0 ? time : last);
+    }
+
+    private boolean served(Change change) {
+        var slot = change.slot;
+        try {
+            if (change.operation == Operation.DELETE) {
+                var rsp = gingersnap.getAllKeysRsp(slot.name);
+                rsp.body().close();
+                return rsp.statusCode() != 200;
+            }
+            var value = gingersnap.get(slot.name, schema.key(1, slot.format, null));
+            // Values are JSON objects keyed by column
+            return value != null && value.contains("\"" + schema.valueColumns().get(1) + "\"") == slot.allColumns;
+        } catch (RuntimeException | AssertionError e) {
+            // The rule is not served yet
+            return false;
+        }
+    }
+
+    private static Map<Operation, Histogram> histograms() {
+        var histograms = new EnumMap<Operation, Histogram>(Operation.class);
+        for (var op : Operation.values())
+            histograms.put(op, Benchmarks.histogram());
+        return histograms;
+    }
+
+    private static Map<Operation, AtomicLong> counters() {
+        var counters = new EnumMap<Operation, AtomicLong>(Operation.class);
+        for (var op : Operation.values())
+            counters.put(op, new AtomicLong());
+        return counters;
+    }
+
+    private static Map<Operation, Long> totals(Map<Operation, AtomicLong> counters) {
+        var totals = new EnumMap<Operation, Long>(Operation.class);
+        counters.forEach((op, count) -> totals.put(op, count.get()));
+        return totals;
+    }
+
+    /**
+     * A rule managed by the generator, with the spec of its last change. Only modified while the rule has no change
+     * in progress.
+     */
+    static class Slot {
+        final String name;
+        final boolean eager;
+        volatile boolean present;
+        volatile boolean allColumns = true;
+        volatile Key.Format format = Key.Format.TEXT;
+
+        Slot(String name, boolean eager) {
+            this.name = name;
+            this.eager = eager;
+        }
+
+        List<String> valueColumns(TableSchema schema) {
+            return allColumns ? schema.valueColumns() : schema.valueColumns().subList(0, 1);
+        }
+
+        void revert(Operation op) {
+            switch (op) {
+                case CREATE, DELETE -> present = !present;
+                case MODIFY_VALUE -> allColumns = !allColumns;
+                case MODIFY_KEY -> format = format == Key.Format.TEXT ? Key.Format.JSON : Key.Format.TEXT;
+            }
+        }
+    }
+
+    static class Change {
+        final Operation operation;
+        final Slot slot;
+        final long issued;
+        volatile String resourceVersion;
+
+        Change(Operation operation, Slot slot, long issued) {
+            this.operation = operation;
+            this.slot = slot;
+            this.issued = issued;
+        }
+    }
+}
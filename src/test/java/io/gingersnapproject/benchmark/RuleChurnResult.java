@@ -0,0 +1,70 @@
+package io.gingersnapproject.benchmark;
+
+import io.gingersnapproject.benchmark.RuleChurnGenerator.Operation;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The outcome of a {@link RuleChurnGenerator} run. The histograms contain the latencies in microseconds of the changes
+ * reflected in the status of their rule and in the responses of the cache respectively, the timeouts count the changes
+ * not reflected on each side.
+ *
+ * @param completed the number of changes reflected in the responses of the cache
+ * @param skipped   the number of operations not issued because every rule had a change in progress
+ * @param elapsed   the time from the first change issued until the last one was reflected or timed out
+ */
+public record RuleChurnResult(RuleChurnGenerator.Options options, Map<Operation, Long> completed,
+                              Map<Operation, Long> statusTimeouts, Map<Operation, Long> responseTimeouts,
+                              Map<Operation, Long> errors, long skipped, Duration elapsed,
+                              Map<Operation, Histogram> status, Map<Operation, Histogram> responses) {
+
+    public long changes() {
+        return completed.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return the number of timeouts on either side, a change not reflected on both sides counting twice
+     */
+    public long timeouts() {
+        return Arrays.stream(Operation.values())
+                .mapToLong(op -> statusTimeouts.get(op) + responseTimeouts.get(op))
+                .sum();
+    }
+
+    /**
+     * @return the number of changes reflected per second, the reconciliation throughput of the operator and the cache
+     */
+    public double throughput() {
+        return elapsed.isZero() ? 0 : changes() * 1e9 / elapsed.toNanos();
+    }
+
+    public String toCsv() {
+        var sb = new StringBuilder("operation,completed,status_timeouts,response_timeouts,errors,skipped,changes_per_s,")
+                .append("status_")
+                .append(Latency.CSV_HEADER.replace(",", ",status_"))
+                .append(",response_")
+                .append(Latency.CSV_HEADER.replace(",", ",response_"))
+                .append('\n');
+        for (var op : Operation.values())
+            sb.append(String.format("%s,%d,%d,%d,%d,%d,%.2f,%s,%s\n", op, completed.get(op), statusTimeouts.get(op),
+                    responseTimeouts.get(op), errors.get(op), skipped, throughput(), Latency.of(status.get(op)).toCsv(),
+                    Latency.of(responses.get(op)).toCsv()));
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rules=%d rate=%dops/s changes=%d timeouts=%d errors=%d skipped=%d throughput=%.2fchanges/s\n",
+                options.rules(), options.rate(), changes(), timeouts(),
+                errors.values().stream().mapToLong(Long::longValue).sum(), skipped, throughput()) +
+                Arrays.stream(Operation.values())
+                        .filter(op -> status.get(op).getTotalCount() > 0 || responses.get(op).getTotalCount() > 0)
+                        .map(op -> String.format("%s status: %s\n%s response: %s", op, Latency.of(status.get(op)), op,
+                                Latency.of(responses.get(op))))
+                        .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,265 @@
+package io.gingersnapproject.benchmark;
+
+import io.gingersnapproject.benchmark.PropagationProbe.Operation;
+import io.gingersnapproject.data.Customer;
+import io.gingersnapproject.data.CustomerGenerator;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Issues a mix of inserts, updates and deletes of {@link Customer} rows from a number of concurrent writers, each
+ * statement borrowing a connection from the given pool and committing on its own.
+ * <p>
+ * The generator only updates and deletes rows that it inserted itself, so that it can run next to tests and probes
+ * working on their own rows. Inserted ids start at {@link Options#firstId()}, which should be far enough from the ids
+ * allocated by JPA and by a {@link PropagationProbe} to never collide with them. While no row is available an update
+ * or delete is issued as an insert.
+ * <p>
+ * Like {@link ReadLoadGenerator}, a {@link Options#rate()} of 0 runs in closed loop mode, otherwise statements are
+ * issued at a fixed aggregate rate and latency is measured from the time each one was scheduled.
+ */
+public class WriteLoadGenerator {
+
+    static final String INSERT = "INSERT INTO gingersnap." + Customer.TABLE_NAME + " (id, fullname, email) VALUES (?, ?, ?)";
+    static final String UPDATE = "UPDATE gingersnap." + Customer.TABLE_NAME + " SET email = ? WHERE id = ?";
+    static final String DELETE = "DELETE FROM gingersnap." + Customer.TABLE_NAME + " WHERE id = ?";
+
+    /**
+     * Relative weights of the operations, e.g. {@code 50,30,20} issues half inserts, 30% updates and 20% deletes.
+     */
+    public record Mix(int insert, int update, int delete) {
+        public Mix {
+            if (insert < 0 || update < 0 || delete < 0 || insert + update + delete == 0)
+                throw new IllegalArgumentException("Invalid operation mix " + insert + "," + update + "," + delete);
+        }
+
+        public static Mix parse(String mix) {
+            var weights = mix.split(",");
+            if (weights.length != 3)
+                throw new IllegalArgumentException("Expected insert,update,delete weights: " + mix);
+            return new Mix(Integer.parseInt(weights[0].trim()), Integer.parseInt(weights[1].trim()), Integer.parseInt(weights[2].trim()));
+        }
+
+        Operation next() {
+            var value = ThreadLocalRandom.current().nextInt(insert + update + delete);
+            if (value < insert) return Operation.INSERT;
+            return value < insert + update ? Operation.UPDATE : Operation.DELETE;
+        }
+
+        @Override
+        public String toString() {
+            return insert + "," + update + "," + delete;
+        }
+    }
+
+    /**
+     * @param workers  the number of concurrent writers, the connection pool should be at least as large
+     * @param rate     the aggregate number of statements per second, or 0 to run in closed loop mode
+     * @param mix          the proportion of each operation
+     * @param distribution the choice of the row updated among the rows inserted and not yet deleted, in approximate
+     *                     insertion order. Deleted rows are chosen uniformly, so that the hot rows stay the same
+     * @param firstId      the id of the first inserted row
+     * @param warmup       the time to generate load before latencies are recorded
+     * @param duration     the time to record latencies for
+     */
+    public record Options(int workers, int rate, Mix mix, KeyDistribution distribution, long firstId, Duration warmup,
+                          Duration duration) {
+
+        public static Options fromProperties() {
+            return new Options(
+                    Benchmarks.intProperty("write.workers", 8),
+                    Benchmarks.intProperty("write.rate", 500),
+                    Mix.parse(System.getProperty(Benchmarks.PROPERTY_PREFIX + "write.mix", "50,30,20")),
+                    KeyDistribution.parse(System.getProperty(Benchmarks.PROPERTY_PREFIX + "write.distribution", "uniform")),
+                    Long.getLong(Benchmarks.PROPERTY_PREFIX + "write.first-id", 1L << 30),
+                    Benchmarks.secondsProperty("write.warmup", 10),
+                    Benchmarks.secondsProperty("write.duration", 30)
+            );
+        }
+
+        public Options withDistribution(KeyDistribution distribution) {
+            return new Options(workers, rate, mix, distribution, firstId, warmup, duration);
+        }
+
+        public boolean isOpenLoop() {
+            return rate > 0;
+        }
+    }
+
+    final DataSource dataSource;
+    final Options options;
+    final CustomerGenerator generator = new CustomerGenerator();
+    final AtomicLong nextId;
+    final LiveIds live = new LiveIds();
+    final AtomicLong updates = new AtomicLong();
+
+    public WriteLoadGenerator(DataSource dataSource, Options options) {
+        if (options.workers() < 1)
+            throw new IllegalArgumentException("At least one worker is required");
+
+        this.dataSource = dataSource;
+        this.options = options;
+        this.nextId = new AtomicLong(options.firstId());
+    }
+
+    public WriteLoadResult run() {
+        var recorders = new EnumMap<Operation, Recorder>(Operation.class);
+        var counts = new EnumMap<Operation, LongAdder>(Operation.class);
+        for (var op : Operation.values()) {
+            recorders.put(op, new Recorder(3));
+            counts.put(op, new LongAdder());
+        }
+        var errors = new LongAdder();
+        var errorLogged = new AtomicBoolean();
+
+        var workers = options.workers();
+        var intervalNanos = options.isOpenLoop() ? TimeUnit.SECONDS.toNanos(workers) / options.rate() : 0;
+        var start = System.nanoTime();
+        var measureStart = start + options.warmup().toNanos();
+        var end = measureStart + options.duration().toNanos();
+
+        var executor = Executors.newFixedThreadPool(workers, Benchmarks.threadFactory("db-writer"));
+        try {
+            var futures = new ArrayList<Future<?>>(workers);
+            for (int i = 0; i < workers; i++) {
+                var firstWrite = start + intervalNanos * i / workers;
+                futures.add(executor.submit(() -> {
+                    var next = firstWrite;
+                    while (true) {
+                        long intended;
+                        if (intervalNanos > 0) {
+                            intended = next;
+                            next += intervalNanos;
+                            long wait;
+                            while ((wait = intended - System.nanoTime()) > 0)
+                                LockSupport.parkNanos(wait);
+                        } else {
+                            intended = System.nanoTime();
+                        }
+                        if (intended - end >= 0)
+                            return;
+
+                        Operation op = null;
+                        boolean error = false;
+                        try {
+                            op = write(options.mix().next());
+                        } catch (Throwable t) {
+                            error = true;
+                            if (errorLogged.compareAndSet(false, true)) {
+                                System.out.printf("Write failed: %s\n", t);
+                            }
+                        }
+                        var latencyNanos = System.nanoTime() - intended;
+                        if (intended - measureStart < 0)
+                            continue;
+
+                        if (error) {
+                            errors.increment();
+                        } else {
+                            counts.get(op).increment();
+                            recorders.get(op).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+                        }
+                    }
+                }));
+            }
+            for (var future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        var elapsed = Duration.ofNanos(Math.max(System.nanoTime(), end) - measureStart);
+        var histograms = new EnumMap<Operation, Histogram>(Operation.class);
+        var totals = new EnumMap<Operation, Long>(Operation.class);
+        recorders.forEach((op, recorder) -> histograms.put(op, recorder.getIntervalHistogram()));
+        counts.forEach((op, count) -> totals.put(op, count.sum()));
+        return new WriteLoadResult(options, totals, errors.sum(), elapsed, histograms);
+    }
+
+    /**
+     * @return the operation actually performed
+     */
+    private Operation write(Operation op) throws SQLException {
+        var id = op == Operation.INSERT ? -1 : op == Operation.UPDATE ? live.get(options.distribution()) : live.take();
+        if (id < 0)
+            op = Operation.INSERT;
+
+        try (var connection = dataSource.getConnection()) {
+            switch (op) {
+                case INSERT -> {
+                    var customer = generator.customer(nextId.getAndIncrement());
+                    try (var stmt = connection.prepareStatement(INSERT)) {
+                        stmt.setLong(1, customer.getId());
+                        stmt.setString(2, customer.getFullname());
+                        stmt.setString(3, customer.getEmail());
+                        stmt.executeUpdate();
+                    }
+                    live.add(customer.getId());
+                }
+                case UPDATE -> {
+                    try (var stmt = connection.prepareStatement(UPDATE)) {
+                        stmt.setString(1, String.format("updated.%d.%d@example.com", id, updates.incrementAndGet()));
+                        stmt.setLong(2, id);
+                        stmt.executeUpdate();
+                    }
+                }
+                case DELETE -> {
+                    try (var stmt = connection.prepareStatement(DELETE)) {
+                        stmt.setLong(1, id);
+                        stmt.executeUpdate();
+                    }
+                }
+            }
+        }
+        return op;
+    }
+
+    /**
+     * The ids of the rows inserted and not yet deleted. A row being deleted is removed first, so that it is never
+     * deleted twice, while an update can race with the deletion of its row and then affects no row. Ids are appended
+     * in insertion order, which removals preserve so that the rank of a row only changes when an older one is removed.
+     */
+    static class LiveIds {
+        long[] ids = new long[1024];
+        int size;
+
+        synchronized void add(long id) {
+            if (size == ids.length)
+                ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        synchronized long get(KeyDistribution distribution) {
+            return size == 0 ? -1 : ids[(int) distribution.next(size)];
+        }
+
+        synchronized long take() {
+            if (size == 0)
+                return -1;
+            var index = ThreadLocalRandom.current().nextInt(size);
+            var id = ids[index];
+            System.arraycopy(ids, index + 1, ids, index, --size - index);
+            return id;
+        }
+    }
+}
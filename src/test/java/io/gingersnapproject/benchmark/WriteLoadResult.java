@@ -0,0 +1,41 @@
+package io.gingersnapproject.benchmark;
+
+import io.gingersnapproject.benchmark.PropagationProbe.Operation;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The outcome of a {@link WriteLoadGenerator} run. Only statements issued after the warmup are accounted for, the
+ * histograms contain the latencies of successful statements in microseconds.
+ */
+public record WriteLoadResult(WriteLoadGenerator.Options options, Map<Operation, Long> counts, long errors,
+                              Duration elapsed, Map<Operation, Histogram> histograms) {
+
+    public long writes() {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public double throughput() {
+        return (writes() + errors) * 1e9 / elapsed.toNanos();
+    }
+
+    public String toCsv() {
+        var sb = new StringBuilder("operation,").append(Latency.CSV_HEADER).append('\n');
+        histograms.forEach((op, histogram) -> sb.append(op).append(',').append(Latency.of(histogram).toCsv()).append('\n'));
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("workers=%d mode=%s mix=%s distribution=%s writes=%d errors=%d throughput=%.1fops/s\n",
+                options.workers(),
+                options.isOpenLoop() ? "open(" + options.rate() + "ops/s)" : "closed",
+                options.mix(), options.distribution(), writes(), errors, throughput()) +
+                histograms.entrySet().stream()
+                        .map(e -> String.format("%s: %s", e.getKey(), Latency.of(e.getValue())))
+                        .collect(Collectors.joining("\n"));
+    }
+}
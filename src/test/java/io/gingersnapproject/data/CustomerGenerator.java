@@ -0,0 +1,44 @@
+package io.gingersnapproject.data;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates {@link Customer} rows deterministically: the same seed and id always produce the same customer, regardless
+ * of the order in which rows are generated. This allows the expected content of a table to be recomputed without
+ * keeping it in memory.
+ */
+public class CustomerGenerator {
+
+    public static final long DEFAULT_SEED = 42;
+
+    static final String[] FIRST_NAMES = {
+            "Alice", "Bob", "Carol", "Dave", "Erin", "Frank", "Grace", "Heidi", "Ivan", "Judy", "Mallory", "Niaj",
+            "Olivia", "Peggy", "Rupert", "Sybil", "Trent", "Victor", "Walter", "Yolanda"
+    };
+
+    static final String[] LAST_NAMES = {
+            "Smith", "Jones", "Taylor", "Brown", "Williams", "Wilson", "Johnson", "Davies", "Robinson", "Wright",
+            "Thompson", "Evans", "Walker", "White", "Roberts", "Green", "Hall", "Wood", "Jackson", "Clarke"
+    };
+
+    final long seed;
+
+    public CustomerGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    public CustomerGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public Customer customer(long id) {
+        var random = new SplittableRandom(seed ^ (id * 0x9E3779B97F4A7C15L));
+        var first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        var last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        return new Customer(
+                id,
+                first + " " + last,
+                String.format("%s.%s.%d@example.com", first.toLowerCase(), last.toLowerCase(), id)
+        );
+    }
+}
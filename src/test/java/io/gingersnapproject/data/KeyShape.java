@@ -0,0 +1,51 @@
+package io.gingersnapproject.data;
+
+import io.gingersnap_project.v1alpha1.eagercacherulespec.Key;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The key of an eager rule: its format and the types of the key columns of its table, with the separator of the
+ * {@code TEXT} format.
+ */
+public record KeyShape(Key.Format format, List<TableSchema.ColumnType> types, String separator) {
+
+    public static final String DEFAULT_TYPES = "bigint,varchar,int,varchar";
+    public static final String DEFAULT_SEPARATOR = "|";
+
+    /**
+     * @return the shapes of both formats keyed on the first 1 to {@code types.size()} types
+     */
+    public static List<KeyShape> matrix(List<TableSchema.ColumnType> types, String separator) {
+        var shapes = new ArrayList<KeyShape>();
+        for (var format : Key.Format.values()) {
+            for (int columns = 1; columns <= types.size(); columns++)
+                shapes.add(new KeyShape(format, types.subList(0, columns), separator));
+        }
+        return shapes;
+    }
+
+    public KeyShape {
+        types = List.copyOf(types);
+    }
+
+    /**
+     * @return the schema keyed on this shape, named after the shape so that every shape has its own table
+     */
+    public TableSchema apply(TableSchema schema) {
+        var name = schema.name() + "_" + format.name().toLowerCase() + "_" + types.size();
+        if (format == Key.Format.TEXT && !separator.equals(DEFAULT_SEPARATOR))
+            name += "_separator";
+        return schema.withKey(name, types);
+    }
+
+    public String key(TableSchema schema, long id) {
+        return schema.key(id, format, separator);
+    }
+
+    @Override
+    public String toString() {
+        return format + " " + types + (format == Key.Format.TEXT ? " separated by '" + separator + "'" : "");
+    }
+}
@@ -0,0 +1,87 @@
+package io.gingersnapproject.data;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the rows of a {@link TableSchema} with plain JDBC, committing inserts every {@link #BATCH_BYTES} bytes of
+ * payload so that wide rows do not build huge transactions.
+ */
+public class RowWriter {
+
+    static final long BATCH_BYTES = 16 << 20;
+    static final int MAX_BATCH_ROWS = 1_000;
+
+    final TableSchema schema;
+    final DataSource dataSource;
+    final String insert;
+    final String update;
+
+    public RowWriter(TableSchema schema, DataSource dataSource) {
+        this.schema = schema;
+        this.dataSource = dataSource;
+        var keys = schema.keyColumnNames();
+        var columns = schema.valueColumns();
+        this.insert = "INSERT INTO " + schema.qualifiedName() + " (" + String.join(", ", keys) + ", " +
+                String.join(", ", columns) + ") VALUES (" +
+                String.join(", ", Collections.nCopies(keys.size() + columns.size(), "?")) + ")";
+        this.update = "UPDATE " + schema.qualifiedName() + " SET " +
+                columns.stream().map(column -> column + " = ?").collect(Collectors.joining(", ")) +
+                " WHERE " + keys.stream().map(column -> column + " = ?").collect(Collectors.joining(" AND "));
+    }
+
+    /**
+     * Inserts the first version of the rows {@code firstId} to {@code firstId + rows - 1}.
+     */
+    public void insert(long firstId, long rows) {
+        var batchRows = (int) Math.max(1, Math.min(MAX_BATCH_ROWS, BATCH_BYTES / Math.max(1, schema.rowBytes())));
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (var stmt = connection.prepareStatement(insert)) {
+                for (long i = 0; i < rows; i++) {
+                    var id = firstId + i;
+                    var keys = schema.keyValues(id);
+                    bind(stmt, 1, keys);
+                    bind(stmt, keys.length + 1, schema.values(id, 0));
+                    stmt.addBatch();
+                    if ((i + 1) % batchRows == 0) {
+                        stmt.executeBatch();
+                        connection.commit();
+                    }
+                }
+                stmt.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Replaces all the values of row {@code id} with those of {@code version}.
+     */
+    public void update(long id, long version) {
+        try (var connection = dataSource.getConnection();
+             var stmt = connection.prepareStatement(update)) {
+            var values = schema.values(id, version);
+            bind(stmt, 1, values);
+            bind(stmt, values.length + 1, schema.keyValues(id));
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void bind(PreparedStatement stmt, int firstParam, Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++)
+            stmt.setObject(firstParam + i, values[i]);
+    }
+}
@@ -0,0 +1,260 @@
+package io.gingersnapproject.data;
+
+import com.google.gson.JsonObject;
+import io.gingersnap_project.v1alpha1.Cache;
+import io.gingersnap_project.v1alpha1.EagerCacheRule;
+import io.gingersnap_project.v1alpha1.LazyCacheRule;
+import io.gingersnap_project.v1alpha1.eagercacherulespec.Key;
+import io.gingersnapproject.database.Database;
+import io.gingersnapproject.kubernetes.Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * A table generated at runtime, keyed on a {@code BIGINT} {@code id} column, or on a composite key of configurable
+ * types, followed by value columns of configurable types. Like {@link CustomerGenerator}, the content of a row only
+ * depends on its id and version, so that the expected value of any row can be recomputed without keeping the table in
+ * memory.
+ * <p>
+ * The id of a row with a composite key is split into digits of base {@link #keyRadix()}, {@value #KEY_RADIX} by
+ * default, the last key column holding the last digit and the first key column the remaining high part, e.g. with
+ * {@code BIGINT,VARCHAR,INT} key columns row 12345 has the key {@code (1, 'k23', 45)}.
+ * <p>
+ * Value columns take the given types in turn. The payload of a row is split between its string columns: a
+ * {@link ColumnType#VARCHAR} column holds at most {@link #VARCHAR_LENGTH} characters and the {@link ColumnType#TEXT}
+ * columns hold the rest evenly, every string column holding at least 16 characters. Every string value starts with
+ * {@code v<version>-}, so that an update can be recognized in the value served by the cache.
+ */
+public record TableSchema(String name, List<Column> keyColumns, List<Column> columns, int keyRadix) {
+
+    public static final String ID_COLUMN = "id";
+    public static final int VARCHAR_LENGTH = 255;
+    // Long enough for the version marker
+    static final int MIN_STRING_LENGTH = 16;
+    static final int KEY_RADIX = 100;
+    static final int KEY_VARCHAR_LENGTH = 32;
+
+    public enum ColumnType {
+        INT(4), BIGINT(8), DOUBLE(8), VARCHAR(0), TEXT(0);
+
+        final int bytes;
+
+        ColumnType(int bytes) {
+            this.bytes = bytes;
+        }
+
+        public boolean isString() {
+            return this == VARCHAR || this == TEXT;
+        }
+
+        public static List<ColumnType> parse(String types) {
+            return Arrays.stream(types.split(","))
+                    .map(type -> valueOf(type.trim().toUpperCase()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @param length the number of characters of a string column, unused by the other types
+     */
+    public record Column(String name, ColumnType type, int length) {
+    }
+
+    public TableSchema {
+        if (keyColumns.isEmpty())
+            throw new IllegalArgumentException("At least one key column is required");
+        for (var column : keyColumns) {
+            if (column.type() == ColumnType.TEXT || column.type() == ColumnType.DOUBLE)
+                throw new IllegalArgumentException("Unsupported key column type " + column.type());
+        }
+        if (keyRadix < 2)
+            throw new IllegalArgumentException("The key radix must be at least 2, not " + keyRadix);
+        keyColumns = List.copyOf(keyColumns);
+        columns = List.copyOf(columns);
+    }
+
+    /**
+     * @param valueColumns the number of value columns, the key column excluded
+     * @param types        the types of the value columns, repeated as needed
+     * @param payloadBytes the number of characters of the string columns of a row
+     */
+    public static TableSchema generate(String name, int valueColumns, List<ColumnType> types, int payloadBytes) {
+        if (valueColumns < 1 || types.isEmpty())
+            throw new IllegalArgumentException("At least one value column and one type are required");
+
+        var columnTypes = new ArrayList<ColumnType>(valueColumns);
+        for (int i = 0; i < valueColumns; i++)
+            columnTypes.add(types.get(i % types.size()));
+        var varchars = Collections.frequency(columnTypes, ColumnType.VARCHAR);
+        var texts = Collections.frequency(columnTypes, ColumnType.TEXT);
+        if (varchars + texts == 0)
+            throw new IllegalArgumentException("At least one string column is required in " + types);
+
+        var varcharLength = Math.max(MIN_STRING_LENGTH, Math.min(VARCHAR_LENGTH, payloadBytes / (varchars + texts)));
+        var textLength = texts == 0 ? 0
+                : Math.max(MIN_STRING_LENGTH, (payloadBytes - varchars * varcharLength) / texts);
+        var columns = new ArrayList<Column>(valueColumns);
+        for (int i = 0; i < valueColumns; i++) {
+            var type = columnTypes.get(i);
+            var length = type == ColumnType.VARCHAR ? varcharLength : type == ColumnType.TEXT ? textLength : 0;
+            columns.add(new Column("c" + i, type, length));
+        }
+        return new TableSchema(name, List.of(new Column(ID_COLUMN, ColumnType.BIGINT, 0)), columns, KEY_RADIX);
+    }
+
+    /**
+     * @return this schema keyed on a composite key of the given types, the {@code id} column being replaced by
+     * columns {@code k0} to {@code kN}
+     */
+    public TableSchema withKey(String name, List<ColumnType> keyTypes) {
+        var keys = new ArrayList<Column>(keyTypes.size());
+        for (int i = 0; i < keyTypes.size(); i++) {
+            var type = keyTypes.get(i);
+            keys.add(new Column("k" + i, type, type == ColumnType.VARCHAR ? KEY_VARCHAR_LENGTH : 0));
+        }
+        return new TableSchema(name, keys, columns, keyRadix);
+    }
+
+    /**
+     * @return this schema with the ids split into digits of base {@code keyRadix}, so that few rows suffice for every
+     * key column to take several values
+     */
+    public TableSchema withKeyRadix(int keyRadix) {
+        return new TableSchema(name, keyColumns, columns, keyRadix);
+    }
+
+    public String qualifiedName() {
+        return "gingersnap." + name;
+    }
+
+    public List<String> keyColumnNames() {
+        return keyColumns.stream().map(Column::name).collect(Collectors.toList());
+    }
+
+    public List<String> valueColumns() {
+        return columns.stream().map(Column::name).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the number of characters of the string columns of a row
+     */
+    public long payloadBytes() {
+        return columns.stream().filter(column -> column.type().isString()).mapToLong(Column::length).sum();
+    }
+
+    /**
+     * @return the approximate number of bytes of the values of a row, the key excluded
+     */
+    public long rowBytes() {
+        return payloadBytes() + columns.stream().mapToLong(column -> column.type().bytes).sum();
+    }
+
+    /**
+     * @return the values of the key columns of row {@code id}
+     */
+    public Object[] keyValues(long id) {
+        var values = new Object[keyColumns.size()];
+        var remaining = id;
+        for (int i = values.length - 1; i >= 0; i--) {
+            var component = i == 0 ? remaining : remaining % keyRadix;
+            remaining /= keyRadix;
+            values[i] = switch (keyColumns.get(i).type()) {
+                case INT -> Math.toIntExact(component);
+                case BIGINT -> component;
+                case VARCHAR -> "k" + component;
+                case DOUBLE, TEXT -> throw new IllegalStateException();
+            };
+        }
+        return values;
+    }
+
+    /**
+     * @return the key of row {@code id} in a rule with the given key format, e.g. {@code 1|k23|45} or
+     * {@code {"k0":1,"k1":"k23","k2":45}}
+     */
+    public String key(long id, Key.Format format, String separator) {
+        var values = keyValues(id);
+        if (format == Key.Format.JSON) {
+            var json = new JsonObject();
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] instanceof Number number)
+                    json.addProperty(keyColumns.get(i).name(), number);
+                else
+                    json.addProperty(keyColumns.get(i).name(), values[i].toString());
+            }
+            return json.toString();
+        }
+        return Arrays.stream(values).map(Object::toString).collect(Collectors.joining(separator));
+    }
+
+    /**
+     * @return the values of the value columns of row {@code id} at {@code version}
+     */
+    public Object[] values(long id, long version) {
+        var random = new SplittableRandom(id * 0x9E3779B97F4A7C15L ^ version);
+        var values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            var column = columns.get(i);
+            values[i] = switch (column.type()) {
+                case INT -> random.nextInt();
+                case BIGINT -> random.nextLong();
+                case DOUBLE -> random.nextDouble();
+                case VARCHAR, TEXT -> string(random, marker(version), column.length());
+            };
+        }
+        return values;
+    }
+
+    /**
+     * @return the prefix of the string values of a row at {@code version}
+     */
+    public static String marker(long version) {
+        return "v" + version + "-";
+    }
+
+    private static String string(SplittableRandom random, String prefix, int length) {
+        var chars = new char[length];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        for (int i = prefix.length(); i < chars.length; i++)
+            chars[i] = (char) ('a' + random.nextInt(26));
+        return new String(chars);
+    }
+
+    public EagerCacheRule eagerCacheRule(String ruleName, Cache cache) {
+        return eagerCacheRule(ruleName, cache, Key.Format.TEXT, null);
+    }
+
+    /**
+     * @param separator the separator of the key columns of the {@code TEXT} format, or {@code null} for the default
+     */
+    public EagerCacheRule eagerCacheRule(String ruleName, Cache cache, Key.Format format, String separator) {
+        return Util.eagerCacheRule(
+                ruleName,
+                cache,
+                qualifiedName(),
+                key -> {
+                    key.setKeyColumns(keyColumnNames());
+                    key.setFormat(format);
+                    if (separator != null)
+                        key.setKeySeparator(separator);
+                },
+                value -> value.setValueColumns(valueColumns())
+        );
+    }
+
+    public LazyCacheRule lazyCacheRule(String ruleName, Cache cache, Database db) {
+        var select = db.select(new LinkedHashSet<>(valueColumns()), qualifiedName(), keyColumnNames());
+        return Util.lazyCacheRule(ruleName, cache, select);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
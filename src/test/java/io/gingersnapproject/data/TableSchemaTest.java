@@ -0,0 +1,58 @@
+package io.gingersnapproject.data;
+
+import io.gingersnap_project.v1alpha1.eagercacherulespec.Key;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.gingersnapproject.data.TableSchema.ColumnType.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TableSchemaTest {
+
+    @Test
+    public void testPayloadSplitBetweenStringColumns() {
+        var schema = TableSchema.generate("t", 5, TableSchema.ColumnType.parse("text,bigint,varchar,double,int"), 10_000);
+        assertThat(schema.valueColumns(), contains("c0", "c1", "c2", "c3", "c4"));
+        assertThat(schema.columns().get(0).length(), is(10_000 - TableSchema.VARCHAR_LENGTH));
+        assertThat(schema.columns().get(2).length(), is(TableSchema.VARCHAR_LENGTH));
+        assertThat(schema.payloadBytes(), is(10_000L));
+        assertThat(schema.rowBytes(), is(10_000L + 8 + 8 + 4));
+
+        var narrow = TableSchema.generate("t", 4, List.of(VARCHAR, INT), 100);
+        assertThat(narrow.columns().get(0).length(), is(50));
+        assertThat(narrow.columns().get(2).length(), is(50));
+        assertThrows(IllegalArgumentException.class, () -> TableSchema.generate("t", 2, List.of(INT, DOUBLE), 100));
+    }
+
+    @Test
+    public void testValuesDependOnIdAndVersion() {
+        var schema = TableSchema.generate("t", 3, List.of(TEXT, BIGINT), 1_000);
+        var values = schema.values(7, 0);
+        assertThat(values, is(schema.values(7, 0)));
+        assertThat(values, is(not(schema.values(8, 0))));
+        assertThat(values[0], instanceOf(String.class));
+        assertThat((String) values[0], allOf(startsWith(TableSchema.marker(0)), hasLength(500)));
+        assertThat(values[1], instanceOf(Long.class));
+        assertThat((String) schema.values(7, 3)[2], startsWith(TableSchema.marker(3)));
+    }
+
+    @Test
+    public void testCompositeKey() {
+        var schema = TableSchema.generate("t", 2, List.of(VARCHAR, INT), 32).withKey("t_3", List.of(BIGINT, VARCHAR, INT));
+        assertThat(schema.keyColumnNames(), contains("k0", "k1", "k2"));
+        assertThat(schema.keyValues(12345), is(new Object[]{1L, "k23", 45}));
+        assertThat(schema.key(12345, Key.Format.TEXT, "|"), is("1|k23|45"));
+        assertThat(schema.key(7, Key.Format.TEXT, ":"), is("0:k0:7"));
+        assertThat(schema.key(12345, Key.Format.JSON, null), is("{\"k0\":1,\"k1\":\"k23\",\"k2\":45}"));
+        assertThat(TableSchema.generate("t", 1, List.of(TEXT), 100).key(12345, Key.Format.TEXT, "|"), is("12345"));
+        assertThrows(IllegalArgumentException.class, () -> schema.withKey("t", List.of(TEXT)));
+
+        var base4 = schema.withKeyRadix(4);
+        assertThat(base4.keyValues(75), is(new Object[]{4L, "k2", 3}));
+        assertThat(base4.withKey("t_2", List.of(INT, INT)).keyValues(75), is(new Object[]{18, 3}));
+        assertThrows(IllegalArgumentException.class, () -> schema.withKeyRadix(1));
+    }
+}
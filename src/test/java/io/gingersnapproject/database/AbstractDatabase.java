@@ -1,67 +1,161 @@
 package io.gingersnapproject.database;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import io.fabric8.kubernetes.api.model.*;
 import io.fabric8.kubernetes.api.model.batch.v1.JobBuilder;
 import io.fabric8.kubernetes.api.model.batch.v1.JobSpecBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.LocalPortForward;
 import io.gingersnapproject.data.Customer;
+import io.gingersnapproject.data.CustomerGenerator;
+import io.gingersnapproject.data.TableSchema;
 import io.gingersnapproject.kubernetes.KubernetesClientResolver;
 import io.gingersnapproject.kubernetes.Util;
+import io.gingersnapproject.kubernetes.Waits;
 import jakarta.persistence.*;
+import org.hibernate.Session;
 import org.junit.jupiter.api.extension.*;
 
+import javax.sql.DataSource;
 import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static io.gingersnapproject.kubernetes.Util.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 
-abstract class AbstractDatabase implements AfterAllCallback, AfterEachCallback, BeforeAllCallback,
-        BeforeEachCallback, Database, ParameterResolver {
+abstract class AbstractDatabase implements AfterAllCallback, BeforeAllCallback, BeforeEachCallback, Database,
+        ParameterResolver {
+
+    static final String CUSTOMER_TABLE = "gingersnap." + Customer.TABLE_NAME;
+    static final int SEED_BATCH_ROWS = 10_000;
+    static final int POOL_SIZE = Integer.getInteger("gingersnap.database.pool.size", 32);
 
     final KubernetesClient k8s = KubernetesClientResolver.resolve();
 
-    final String namespace;
     final String vendor;
     final int port;
 
-    Closeable forwardedPort;
-    EntityManagerFactory emf;
+    String namespace;
+    Deployment deployment;
     EntityManager em;
 
     public AbstractDatabase(String vendor, int port) {
-        this.namespace = vendor;
         this.port = port;
         this.vendor = vendor;
     }
 
-    @Override
-    public void beforeAll(ExtensionContext context) {
-        waitForNamespaceDeletion(k8s, namespace);
-        createNamespace(k8s, namespace);
+    /**
+     * A deployed database, shared by the test classes leasing it from the {@link DatabasePool}.
+     */
+    static class Deployment implements AutoCloseable {
+        final KubernetesClient k8s;
+        final String namespace;
+        final Closeable forwardedPort;
+        final String persistenceUnit;
+        final String url;
+        EntityManagerFactory emf;
+        HikariDataSource dataSource;
+
+        Deployment(KubernetesClient k8s, String namespace, Closeable forwardedPort, String persistenceUnit, String url) {
+            this.k8s = k8s;
+            this.namespace = namespace;
+            this.forwardedPort = forwardedPort;
+            this.persistenceUnit = persistenceUnit;
+            this.url = url;
+            createEntityManagerFactory();
+        }
 
-        var resources = k8s
-                .load(resourceStream(vendor + ".yaml"))
-                .inNamespace(namespace)
-                .create();
+        void createEntityManagerFactory() {
+            emf = Persistence.createEntityManagerFactory(persistenceUnit, Map.of("jakarta.persistence.jdbc.url", url));
+        }
+
+        synchronized DataSource dataSource() {
+            if (dataSource == null) {
+                var props = emf.getProperties();
+                var config = new HikariConfig();
+                config.setPoolName("gingersnap-" + namespace);
+                config.setJdbcUrl(url);
+                config.setUsername((String) props.get("jakarta.persistence.jdbc.user"));
+                config.setPassword((String) props.get("jakarta.persistence.jdbc.password"));
+                config.setMaximumPoolSize(POOL_SIZE);
+                dataSource = new HikariDataSource(config);
+            }
+            return dataSource;
+        }
+
+        @Override
+        public void close() throws Exception {
+            try {
+                if (dataSource != null) dataSource.close();
+                if (emf != null) emf.close();
+                if (forwardedPort != null) forwardedPort.close();
+            } finally {
+                k8s.namespaces().withName(namespace).delete();
+            }
+        }
+    }
 
-        k8s.resourceList(resources).waitUntilReady(4, TimeUnit.MINUTES);
-        forwardedPort = forwardPort(k8s, namespace, vendor, port, port);
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        deployment = DatabasePool.of(context, vendor).acquire(this::deploy);
+        namespace = deployment.namespace;
+        em = deployment.emf.createEntityManager();
+    }
 
-        var initializer = initializer();
-        if (initializer == null)
-            return;
+    protected Deployment deploy() {
+        // Unique per deployment, so that test classes using the same vendor can be executed concurrently
+        namespace = uniqueNamespace(vendor);
+        createNamespace(k8s, namespace);
+        LocalPortForward forward = null;
+        try {
+            k8s
+                    .load(resourceStream(vendor + ".yaml"))
+                    .inNamespace(namespace)
+                    .create();
+
+            Waits.awaitPodsReady(k8s, namespace, "app.kubernetes.io/name", vendor, 1, Duration.ofMinutes(4));
+            if (Util.LOCAL_TEST_EXECUTION)
+                forward = forwardPort(k8s, namespace, vendor, port, 0);
+
+            var initializer = initializer();
+            if (initializer != null)
+                initialize(initializer);
+
+            return new Deployment(
+                    k8s,
+                    namespace,
+                    forward,
+                    String.format("io.gingersnapproject.%s.%s", vendor, Util.LOCAL_TEST_EXECUTION ? "local" : "deployed"),
+                    forward == null ? jdbcUrl(host(), port) : jdbcUrl("localhost", forward.getLocalPort())
+            );
+        } catch (RuntimeException | Error e) {
+            // The deployment never reaches the pool, so it has to be removed here
+            try {
+                if (forward != null) forward.close();
+            } catch (IOException ioe) {
+                e.addSuppressed(ioe);
+            }
+            k8s.namespaces().withName(namespace).delete();
+            throw e;
+        }
+    }
 
+    private void initialize(DBInitializer initializer) {
         // Create ConfigMap containing init scripts
         var data = initializer.scripts.stream().collect(Collectors.toMap(Function.identity(), this::resource));
         var configMap = k8s.resource(
@@ -121,17 +215,10 @@ abstract class AbstractDatabase implements AfterAllCallback, AfterEachCallback,
                 .inNamespace(namespace)
                 .create();
 
-        // Get All pods created by the job and wait for pod to complete
-        var pods = k8s.pods().inNamespace(namespace).withLabel("job-name", job.getMetadata().getName());
-        eventually(() -> pods.list().getItems().size() > 0);
-        PodList podList = pods.list();
-        k8s.pods()
-                .inNamespace(namespace)
-                .withName(podList.getItems().get(0).getMetadata().getName())
-                .waitUntilCondition(pod -> pod.getStatus().getPhase().equals("Succeeded"), 4, TimeUnit.MINUTES);
-
-        emf = Persistence.createEntityManagerFactory(String.format("io.gingersnapproject.%s.%s", vendor, Util.LOCAL_TEST_EXECUTION ? "local" : "deployed"));
-        em = emf.createEntityManager();
+        // Wait for the pod created by the job to complete
+        Waits.awaitPods(k8s, namespace, "job-name", job.getMetadata().getName(),
+                pods -> !pods.isEmpty() && pods.get(0).getStatus() != null && "Succeeded".equals(pods.get(0).getStatus().getPhase()),
+                Duration.ofMinutes(4));
     }
 
     public record DBInitializer(String image, List<String> commands, Set<String> scripts) {
@@ -143,15 +230,24 @@ abstract class AbstractDatabase implements AfterAllCallback, AfterEachCallback,
 
     @Override
     public void beforeEach(ExtensionContext context) {
-        // Reset tables
+        // Reset tables with plain JDBC, a JPQL bulk delete is much slower on a deployment reused across classes
+        em.clear();
         EntityTransaction tx = em.getTransaction();
         tx.begin();
-        em.createQuery("DELETE FROM customer").executeUpdate();
+        em.unwrap(Session.class).doWork(connection -> {
+            try (var stmt = connection.createStatement()) {
+                stmt.executeUpdate(resetStatement());
+            }
+            // Populate tables. Alice is always inserted with id 1, regardless of the state of the increment generator
+            try (var stmt = connection.prepareStatement("INSERT INTO " + CUSTOMER_TABLE + " (id, fullname, email) VALUES (?, ?, ?)")) {
+                stmt.setLong(1, 1L);
+                stmt.setString(2, "Alice");
+                stmt.setString(3, "alice@example.com");
+                stmt.executeUpdate();
+            }
+        });
         tx.commit();
 
-        // Populate tables
-        insert(new Customer("Alice", "alice@example.com"));
-
         // Ensure that expected number of entries have been added to the table(s)
         assertThat(
                 query("FROM customer c WHERE c.id = ?1", Customer.class)
@@ -161,16 +257,17 @@ abstract class AbstractDatabase implements AfterAllCallback, AfterEachCallback,
         );
     }
 
-    @Override
-    public void afterEach(ExtensionContext context) throws Exception {
-        if (forwardedPort != null) forwardedPort.close();
+    /**
+     * The statement removing all rows from the customer table before each test.
+     */
+    protected String resetStatement() {
+        return "TRUNCATE TABLE " + CUSTOMER_TABLE;
     }
 
     @Override
     public void afterAll(ExtensionContext context) {
         if (em != null) em.close();
-        if (emf != null) emf.close();
-        k8s.namespaces().withName(namespace).delete();
+        if (deployment != null) DatabasePool.of(context, vendor).release(deployment);
     }
 
     @Override
@@ -208,6 +305,8 @@ abstract class AbstractDatabase implements AfterAllCallback, AfterEachCallback,
                 .build();
     }
 
+    protected abstract String jdbcUrl(String host, int port);
+
     protected String host() {
         return String.format("%s.%s.svc.cluster.local", vendor, namespace);
     }
@@ -220,6 +319,14 @@ abstract class AbstractDatabase implements AfterAllCallback, AfterEachCallback,
         tx.commit();
     }
 
+    @Override
+    public void update(Object entity) {
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        em.merge(entity);
+        tx.commit();
+    }
+
     @Override
     public void delete(Object entity) {
         EntityTransaction tx = em.getTransaction();
@@ -233,6 +340,105 @@ abstract class AbstractDatabase implements AfterAllCallback, AfterEachCallback,
         return em.createQuery(query, resultClass);
     }
 
+    @Override
+    public DataSource dataSource() {
+        return deployment.dataSource();
+    }
+
+    @Override
+    public SeedResult seed(long rows, CustomerGenerator generator) {
+        var start = System.nanoTime();
+        var firstId = em.unwrap(Session.class).doReturningWork(connection -> {
+            long id;
+            try (var stmt = connection.createStatement();
+                 var rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + CUSTOMER_TABLE)) {
+                rs.next();
+                id = rs.getLong(1) + 1;
+            }
+            var autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                bulkInsert(connection, generator, id, rows);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return id;
+        });
+        var result = new SeedResult(vendor, firstId, rows, Duration.ofNanos(System.nanoTime() - start));
+        System.out.printf("Seeded %s\n", result);
+
+        // Hibernate's increment generator caches the highest id per EntityManagerFactory, so it must be recreated
+        // for subsequent JPA inserts to see the seeded rows
+        em.close();
+        deployment.emf.close();
+        deployment.createEntityManagerFactory();
+        em = deployment.emf.createEntityManager();
+        return result;
+    }
+
+    /**
+     * Inserts {@code rows} customers starting at {@code firstId} using JDBC batches. Vendors override this with their
+     * own fast path. The connection is not in auto-commit mode, intermediate commits are allowed.
+     */
+    protected void bulkInsert(Connection connection, CustomerGenerator generator, long firstId, long rows) throws SQLException {
+        try (var stmt = connection.prepareStatement("INSERT INTO " + CUSTOMER_TABLE + " (id, fullname, email) VALUES (?, ?, ?)")) {
+            for (long i = 0; i < rows; i++) {
+                var customer = generator.customer(firstId + i);
+                stmt.setLong(1, customer.getId());
+                stmt.setString(2, customer.getFullname());
+                stmt.setString(3, customer.getEmail());
+                stmt.addBatch();
+                if ((i + 1) % SEED_BATCH_ROWS == 0) {
+                    stmt.executeBatch();
+                    connection.commit();
+                }
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    @Override
+    public void createTable(TableSchema schema) {
+        var ddl = "CREATE TABLE " + schema.qualifiedName() + " (" +
+                Stream.concat(schema.keyColumns().stream(), schema.columns().stream())
+                        .map(column -> column.name() + " " + columnType(column))
+                        .collect(Collectors.joining(", ")) +
+                ", PRIMARY KEY (" + String.join(", ", schema.keyColumnNames()) + "))";
+        try (var connection = dataSource().getConnection();
+             var stmt = connection.createStatement()) {
+            stmt.executeUpdate("DROP TABLE IF EXISTS " + schema.qualifiedName());
+            stmt.executeUpdate(ddl);
+            enableChangeCapture(connection, schema);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void dropTable(TableSchema schema) {
+        try (var connection = dataSource().getConnection();
+             var stmt = connection.createStatement()) {
+            stmt.executeUpdate("DROP TABLE IF EXISTS " + schema.qualifiedName());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the SQL type of a column of a generated table
+     */
+    protected abstract String columnType(TableSchema.Column column);
+
+    /**
+     * Called once a generated table has been created, for vendors that capture the changes of selected tables only.
+     */
+    protected void enableChangeCapture(Connection connection, TableSchema schema) throws SQLException {
+    }
+
     protected InputStream resourceStream(String name) {
         return AbstractDatabase.class.getResourceAsStream(String.format("/kubernetes/database/%s/%s", vendor, name));
     }
@@ -0,0 +1,28 @@
+package io.gingersnapproject.database;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A row change published by a {@link ChangeFeed} once its transaction committed.
+ *
+ * @param sequence  the position of the change in the feed, changes are published in commit order
+ * @param committed the time at which the transaction of the change committed
+ * @param table     the qualified name of the table, e.g. {@code gingersnap.customer}
+ * @param before    the columns of the row before the change, {@code null} for an insert
+ * @param after     the columns of the row after the change, {@code null} for a delete
+ */
+public record ChangeEvent(long sequence, Instant committed, Operation operation, String table,
+                          Map<String, Object> before, Map<String, Object> after) {
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+
+    /**
+     * @return the row after an insert or update, the deleted row otherwise
+     */
+    public Map<String, Object> row() {
+        return after != null ? after : before;
+    }
+}
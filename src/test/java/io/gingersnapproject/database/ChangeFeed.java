@@ -0,0 +1,275 @@
+package io.gingersnapproject.database;
+
+import org.h2.api.Trigger;
+import org.h2.jdbc.JdbcConnection;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * The ordered stream of the row changes committed to an embedded {@link H2} database, standing in for the change data
+ * capture of the deployed databases.
+ * <p>
+ * A {@link CaptureTrigger} records every row inserted, updated or deleted in a captured table as a pending change of
+ * its session. The connections of {@link #capture(DataSource)} publish the pending changes of their session once its
+ * transaction committed, and discard them when it rolled back. Commits are serialized with the publication of their
+ * changes, so that changes are published in commit order with their commit time. In auto-commit mode the connections
+ * commit after every statement themselves.
+ * <p>
+ * Only the changes made through the captured connections are published: changes made through other connections are
+ * only published with the next commit of their session, if ever. {@code TRUNCATE TABLE} does not fire triggers and
+ * rolling back to a savepoint is not supported.
+ */
+public class ChangeFeed {
+
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    record Change(ChangeEvent.Operation operation, String table, Map<String, Object> before, Map<String, Object> after) {
+    }
+
+    // The uncommitted changes of every H2 session of the JVM
+    static final Map<Object, List<Change>> PENDING = new ConcurrentHashMap<>();
+
+    final List<Consumer<ChangeEvent>> subscribers = new CopyOnWriteArrayList<>();
+    long sequence;
+
+    /**
+     * Subscribes to the changes committed from now on. Subscribers are invoked in commit order on the committing
+     * thread, while commits are blocked, so they should hand the events off rather than process them.
+     */
+    public Subscription subscribe(Consumer<ChangeEvent> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    /**
+     * @return the sequence of the last published change
+     */
+    public synchronized long sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return a data source whose connections publish the changes they commit to this feed
+     */
+    DataSource capture(DataSource dataSource) {
+        return new CapturingDataSource(dataSource);
+    }
+
+    synchronized void commit(Connection connection, Object session) throws SQLException {
+        connection.commit();
+        var changes = PENDING.remove(session);
+        if (changes == null)
+            return;
+        var committed = Instant.now();
+        for (var change : changes) {
+            var event = new ChangeEvent(++sequence, committed, change.operation, change.table, change.before, change.after);
+            for (var subscriber : subscribers) {
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    System.out.printf("Change feed subscriber failed on %s: %s\n", event, e);
+                }
+            }
+        }
+    }
+
+    void rollback(Connection connection, Object session) throws SQLException {
+        try {
+            connection.rollback();
+        } finally {
+            PENDING.remove(session);
+        }
+    }
+
+    static Object session(Connection connection) throws SQLException {
+        return connection.unwrap(JdbcConnection.class).getSession();
+    }
+
+    /**
+     * Records the changes of a table as pending changes of the session making them. Created by H2 from its class name,
+     * e.g. {@code CREATE TRIGGER t AFTER INSERT, UPDATE, DELETE ON gingersnap.customer FOR EACH ROW CALL "..."}.
+     */
+    public static class CaptureTrigger implements Trigger {
+
+        String table;
+        final List<String> columns = new ArrayList<>();
+
+        @Override
+        public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+                         int type) throws SQLException {
+            // Unquoted identifiers are upper case in H2, lower case in the captured events like in the deployed databases
+            table = (schemaName + "." + tableName).toLowerCase();
+            try (var rs = conn.getMetaData().getColumns(null, schemaName, tableName, null)) {
+                while (rs.next())
+                    columns.add(rs.getString("COLUMN_NAME").toLowerCase());
+            }
+        }
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+            var operation = oldRow == null ? ChangeEvent.Operation.INSERT :
+                    newRow == null ? ChangeEvent.Operation.DELETE : ChangeEvent.Operation.UPDATE;
+            PENDING.computeIfAbsent(session(conn), s -> new ArrayList<>())
+                    .add(new Change(operation, table, row(oldRow), row(newRow)));
+        }
+
+        private Map<String, Object> row(Object[] values) {
+            if (values == null)
+                return null;
+            var row = new LinkedHashMap<String, Object>();
+            for (int i = 0; i < values.length; i++)
+                row.put(columns.get(i), values[i]);
+            return row;
+        }
+    }
+
+    private class CapturingDataSource implements DataSource {
+        final DataSource dataSource;
+
+        CapturingDataSource(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return capture(dataSource.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return capture(dataSource.getConnection(username, password));
+        }
+
+        private Connection capture(Connection connection) throws SQLException {
+            var handler = new CapturingConnection(connection);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return dataSource.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            dataSource.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            dataSource.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return dataSource.getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return dataSource.getParentLogger();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return dataSource.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return dataSource.isWrapperFor(iface);
+        }
+    }
+
+    /**
+     * Keeps the connection in manual commit mode, so that every commit goes through {@link #commit}, and emulates
+     * auto-commit mode.
+     */
+    private class CapturingConnection implements InvocationHandler {
+        final Connection connection;
+        final Object session;
+        boolean autoCommit;
+
+        CapturingConnection(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.session = session(connection);
+            this.autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getAutoCommit" -> {
+                    return autoCommit;
+                }
+                case "setAutoCommit" -> {
+                    if ((Boolean) args[0] && !autoCommit)
+                        commit(connection, session);
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                }
+                case "commit" -> {
+                    commit(connection, session);
+                    return null;
+                }
+                case "rollback" -> {
+                    if (args != null)
+                        throw new SQLFeatureNotSupportedException("Rolling back to a savepoint is not captured");
+                    rollback(connection, session);
+                    return null;
+                }
+                case "close" -> {
+                    try {
+                        if (!autoCommit && !connection.isClosed())
+                            rollback(connection, session);
+                    } finally {
+                        connection.close();
+                    }
+                    return null;
+                }
+                case "createStatement", "prepareStatement", "prepareCall" -> {
+                    var statement = call(connection, method, args);
+                    return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{method.getReturnType()},
+                            (p, m, a) -> {
+                                var result = call(statement, m, a);
+                                if (autoCommit && m.getName().startsWith("execute"))
+                                    commit(connection, session);
+                                return result;
+                            });
+                }
+                default -> {
+                    return call(connection, method, args);
+                }
+            }
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package io.gingersnapproject.database;
 
 import io.fabric8.kubernetes.api.model.Secret;
+import io.gingersnapproject.data.CustomerGenerator;
+import io.gingersnapproject.data.TableSchema;
 import jakarta.persistence.TypedQuery;
 
+import javax.sql.DataSource;
 import java.util.List;
 import java.util.Set;
 
@@ -13,7 +16,32 @@ public interface Database {
 
     void insert(Object entity);
 
+    void update(Object entity);
+
     void delete(Object entity);
 
     <T> TypedQuery<T> query(String query, Class<T> resultClass);
+
+    /**
+     * A pool of JDBC connections to the database, for workloads issuing statements from multiple threads. Connections
+     * are in auto-commit mode and must be returned to the pool by closing them.
+     */
+    DataSource dataSource();
+
+    /**
+     * Bulk inserts {@code rows} generated customers with ids following the current highest id, bypassing JPA.
+     */
+    SeedResult seed(long rows, CustomerGenerator generator);
+
+    default SeedResult seed(long rows) {
+        return seed(rows, new CustomerGenerator());
+    }
+
+    /**
+     * Creates the table of the schema, replacing any existing table of the same name, and enables change data
+     * capture on it when the vendor requires it per table.
+     */
+    void createTable(TableSchema schema);
+
+    void dropTable(TableSchema schema);
 }
@@ -0,0 +1,77 @@
+package io.gingersnapproject.database;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Pool of database deployments of a single vendor, stored in the root {@link ExtensionContext.Store} so that it
+ * outlives the test classes using it. A deployment is leased by one test class at a time, since classes are executed
+ * concurrently and reset the tables before each test. A new deployment is only created when every existing one is
+ * leased, and all of them are removed once the test plan has been executed.
+ */
+class DatabasePool implements ExtensionContext.Store.CloseableResource {
+
+    static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(DatabasePool.class);
+
+    final String vendor;
+    final Deque<AbstractDatabase.Deployment> idle = new ArrayDeque<>();
+    final List<AbstractDatabase.Deployment> deployments = new ArrayList<>();
+    int leases;
+
+    DatabasePool(String vendor) {
+        this.vendor = vendor;
+    }
+
+    static DatabasePool of(ExtensionContext context, String vendor) {
+        return context.getRoot()
+                .getStore(NAMESPACE)
+                .getOrComputeIfAbsent(vendor, DatabasePool::new, DatabasePool.class);
+    }
+
+    AbstractDatabase.Deployment acquire(Supplier<AbstractDatabase.Deployment> deploy) {
+        synchronized (this) {
+            var deployment = idle.poll();
+            if (deployment != null) {
+                leases++;
+                return deployment;
+            }
+        }
+        // Deploy outside the lock, so that classes starting at the same time do not wait for each other
+        var deployment = deploy.get();
+        synchronized (this) {
+            deployments.add(deployment);
+            leases++;
+            System.out.printf("Deployed %s database %d in namespace %s\n", vendor, deployments.size(), deployment.namespace);
+        }
+        return deployment;
+    }
+
+    synchronized void release(AbstractDatabase.Deployment deployment) {
+        leases--;
+        idle.push(deployment);
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (leases != 0)
+            System.out.printf("Closing %s database pool with %d leases outstanding\n", vendor, leases);
+        Exception failure = null;
+        for (var deployment : deployments) {
+            try {
+                deployment.close();
+            } catch (Exception e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+        deployments.clear();
+        idle.clear();
+        if (failure != null)
+            throw failure;
+    }
+}
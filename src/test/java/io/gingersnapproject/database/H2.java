@@ -0,0 +1,157 @@
+package io.gingersnapproject.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.gingersnapproject.data.TableSchema;
+import jakarta.persistence.Persistence;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static io.gingersnapproject.kubernetes.Util.uniqueNamespace;
+
+/**
+ * An in-memory H2 database embedded in the test JVM, which starts in milliseconds instead of minutes, with the
+ * {@link ChangeFeed} of its committed changes standing in for change data capture. It is not reachable from a
+ * cluster, so it is meant for developing and benchmarking the database side of the tooling, e.g. together with a
+ * {@link io.gingersnapproject.kubernetes.MockCluster}.
+ * <p>
+ * Each deployment is a distinct in-memory database, whose name stands in for the namespace of the deployed vendors.
+ */
+public class H2 extends AbstractDatabase {
+
+    static final String TRIGGER = ChangeFeed.CaptureTrigger.class.getName();
+
+    public H2() {
+        super("h2", 0);
+    }
+
+    /**
+     * @return the changes committed to the database
+     */
+    public ChangeFeed changes() {
+        return ((EmbeddedDeployment) deployment).changes;
+    }
+
+    @Override
+    protected Deployment deploy() {
+        var name = uniqueNamespace(vendor);
+        var url = jdbcUrl(name);
+        try (var connection = DriverManager.getConnection(url, "sa", "");
+             var stmt = connection.createStatement()) {
+            stmt.executeUpdate("CREATE SCHEMA gingersnap");
+            stmt.executeUpdate("CREATE TABLE " + CUSTOMER_TABLE + " (id int not null, fullname varchar(255), email varchar(255), PRIMARY KEY (id))");
+            stmt.executeUpdate(createTrigger(CUSTOMER_TABLE));
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return new EmbeddedDeployment(name, url);
+    }
+
+    /**
+     * The in-memory database is kept until it is shut down, rather than until its last connection is closed.
+     */
+    static String jdbcUrl(String name) {
+        return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=10000";
+    }
+
+    @Override
+    protected String jdbcUrl(String host, int port) {
+        return jdbcUrl(namespace);
+    }
+
+    @Override
+    protected String host() {
+        return "localhost";
+    }
+
+    @Override
+    public String select(Set<String> valueColumns, String table, List<String> whereColumns) {
+        return "SELECT " +
+                String.join(", ", valueColumns) +
+                " FROM " +
+                table +
+                " WHERE " +
+                whereColumns.stream()
+                        .map(whereColumn -> whereColumn + " = ?")
+                        .collect(Collectors.joining(" AND "));
+    }
+
+    @Override
+    protected String columnType(TableSchema.Column column) {
+        return switch (column.type()) {
+            case INT -> "int";
+            case BIGINT -> "bigint";
+            case DOUBLE -> "double precision";
+            case VARCHAR -> "varchar(" + column.length() + ")";
+            // The longest H2 string, values are materialized as strings in the change events unlike LOBs
+            case TEXT -> "varchar(1000000)";
+        };
+    }
+
+    @Override
+    protected void enableChangeCapture(Connection connection, TableSchema schema) throws SQLException {
+        try (var stmt = connection.createStatement()) {
+            stmt.executeUpdate(createTrigger(schema.qualifiedName()));
+        }
+    }
+
+    private static String createTrigger(String table) {
+        return String.format("CREATE TRIGGER %s_capture AFTER INSERT, UPDATE, DELETE ON %s FOR EACH ROW CALL \"%s\"",
+                table, table, TRIGGER);
+    }
+
+    /**
+     * The JDBC pool and the entity manager factory share the connections capturing the changes, so that the changes
+     * made through JPA are published as well.
+     */
+    static class EmbeddedDeployment extends Deployment {
+        // Assigned when the superclass constructor creates the entity manager factory, so without initializers
+        ChangeFeed changes;
+        DataSource captured;
+
+        EmbeddedDeployment(String name, String url) {
+            super(null, name, null, "io.gingersnapproject.h2", url);
+        }
+
+        @Override
+        void createEntityManagerFactory() {
+            emf = Persistence.createEntityManagerFactory(persistenceUnit, Map.of("jakarta.persistence.nonJtaDataSource", dataSource()));
+        }
+
+        @Override
+        synchronized DataSource dataSource() {
+            if (captured == null) {
+                var config = new HikariConfig();
+                config.setPoolName("gingersnap-" + namespace);
+                config.setJdbcUrl(url);
+                config.setUsername("sa");
+                config.setMaximumPoolSize(POOL_SIZE);
+                dataSource = new HikariDataSource(config);
+                changes = new ChangeFeed();
+                captured = changes.capture(dataSource);
+            }
+            return captured;
+        }
+
+        @Override
+        public void close() throws Exception {
+            try {
+                if (emf != null) emf.close();
+            } finally {
+                if (dataSource != null) dataSource.close();
+            }
+            // Drops the in-memory database, once the pool no longer holds connections to it
+            try (var connection = DriverManager.getConnection(url, "sa", "");
+                 var stmt = connection.createStatement()) {
+                stmt.execute("SHUTDOWN");
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.gingersnapproject.database;
+
+import io.gingersnapproject.benchmark.KeyDistribution;
+import io.gingersnapproject.benchmark.WriteLoadGenerator;
+import io.gingersnapproject.data.Customer;
+import io.gingersnapproject.data.RowWriter;
+import io.gingersnapproject.data.TableSchema;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static io.gingersnapproject.database.ChangeEvent.Operation.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@ExtendWith(H2.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class H2Test {
+
+    H2 db;
+
+    @BeforeAll
+    public void beforeAll(Database database) {
+        this.db = (H2) database;
+    }
+
+    @Test
+    public void testChangesPublishedInCommitOrder() throws Exception {
+        var events = new CopyOnWriteArrayList<ChangeEvent>();
+        var bob = new Customer("Bob", "bob@example.com");
+        try (var subscription = db.changes().subscribe(events::add)) {
+            db.insert(bob);
+            bob.setEmail("bob@example.org");
+            db.update(bob);
+
+            try (var connection = db.dataSource().getConnection()) {
+                // Rolled back, never published
+                connection.setAutoCommit(false);
+                try (var stmt = connection.createStatement()) {
+                    stmt.executeUpdate("UPDATE gingersnap.customer SET email = 'rolled@back' WHERE id = 1");
+                }
+                connection.rollback();
+                connection.setAutoCommit(true);
+                try (var stmt = connection.createStatement()) {
+                    stmt.executeUpdate("UPDATE gingersnap.customer SET fullname = 'Alice Liddell' WHERE id = 1");
+                }
+            }
+            db.delete(bob);
+        }
+
+        assertThat(events.stream().map(ChangeEvent::operation).collect(Collectors.toList()), contains(INSERT, UPDATE, UPDATE, DELETE));
+        assertThat(events.get(0).table(), is("gingersnap.customer"));
+        assertThat(events.get(0).before(), nullValue());
+        assertThat(events.get(1).before().get("email"), is("bob@example.com"));
+        assertThat(events.get(1).after().get("email"), is("bob@example.org"));
+        assertThat(events.get(2).after(), allOf(hasEntry("id", (Object) 1), hasEntry("fullname", (Object) "Alice Liddell")));
+        assertThat(events.get(3).after(), nullValue());
+        assertThat(events.get(3).row().get("id"), is(bob.getId().intValue()));
+        for (int i = 1; i < events.size(); i++) {
+            assertThat(events.get(i).sequence(), is(events.get(i - 1).sequence() + 1));
+            assertThat(events.get(i).committed(), greaterThanOrEqualTo(events.get(i - 1).committed()));
+        }
+        assertThat(db.changes().sequence(), is(events.get(3).sequence()));
+    }
+
+    @Test
+    public void testGeneratedTable() {
+        var schema = TableSchema.generate("h2_table", 3, TableSchema.ColumnType.parse("text,bigint,varchar"), 1_000)
+                .withKey("h2_table", List.of(TableSchema.ColumnType.BIGINT, TableSchema.ColumnType.VARCHAR));
+        db.createTable(schema);
+        var events = new CopyOnWriteArrayList<ChangeEvent>();
+        try (var subscription = db.changes().subscribe(events::add)) {
+            var writer = new RowWriter(schema, db.dataSource());
+            writer.insert(1, 100);
+            writer.update(42, 1);
+        } finally {
+            db.dropTable(schema);
+        }
+        assertThat(events, hasSize(101));
+        assertThat(events.get(100).table(), is(schema.qualifiedName()));
+        assertThat(events.get(100).after(), hasEntry("k1", (Object) "k42"));
+        assertThat((String) events.get(100).after().get("c0"), startsWith(TableSchema.marker(1)));
+    }
+
+    @Test
+    public void testConcurrentWrites() {
+        var events = new CopyOnWriteArrayList<ChangeEvent>();
+        var options = new WriteLoadGenerator.Options(8, 0, WriteLoadGenerator.Mix.parse("50,30,20"),
+                KeyDistribution.parse("uniform"), 1L << 30, Duration.ZERO, Duration.ofSeconds(2));
+        try (var subscription = db.changes().subscribe(events::add)) {
+            var result = new WriteLoadGenerator(db.dataSource(), options).run();
+            System.out.printf("H2 write load: %s\n", result);
+            assertThat(result.errors(), is(0L));
+        }
+        // Every id is inserted, updated and deleted in commit order
+        var byId = events.stream().collect(Collectors.groupingBy(e -> e.row().get("id")));
+        byId.forEach((id, changes) -> {
+            assertThat(changes.get(0).operation(), is(INSERT));
+            for (int i = 1; i < changes.size(); i++) {
+                assertThat(changes.get(i - 1).operation(), is(not(DELETE)));
+                assertThat(changes.get(i).before(), is(changes.get(i - 1).after()));
+            }
+        });
+    }
+}
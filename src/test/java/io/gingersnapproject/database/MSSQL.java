@@ -1,5 +1,15 @@
 package io.gingersnapproject.database;
 
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+import io.gingersnapproject.data.CustomerGenerator;
+import io.gingersnapproject.data.TableSchema;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -16,7 +26,7 @@ public class MSSQL extends AbstractDatabase {
     protected DBInitializer initializer() {
         return new DBInitializer(
                 "mcr.microsoft.com/mssql-tools",
-                List.of("/bin/sh", "-c", "/init/setup.sh"),
+                List.of("/bin/sh", "-c", "/init/setup.sh " + host()),
                 Set.of("setup.sh", "setup.sql")
         );
     }
@@ -26,6 +36,17 @@ public class MSSQL extends AbstractDatabase {
         props.put("username", "gingersnap_login");
     }
 
+    @Override
+    protected String resetStatement() {
+        // TRUNCATE is rejected on tables with change data capture enabled
+        return "DELETE FROM " + CUSTOMER_TABLE;
+    }
+
+    @Override
+    protected String jdbcUrl(String host, int port) {
+        return String.format("jdbc:sqlserver://%s:%d;databaseName=gingersnap;encrypt=false", host, port);
+    }
+
     @Override
     public String select(Set<String> valueColumns, String table, List<String> whereColumns) {
         return "SELECT " +
@@ -37,4 +58,90 @@ public class MSSQL extends AbstractDatabase {
                         .mapToObj(index -> String.format("%s = @P%d", whereColumns.get(index), index + 1))
                         .collect(Collectors.joining(" AND "));
     }
+
+    @Override
+    protected String columnType(TableSchema.Column column) {
+        return switch (column.type()) {
+            case INT -> "int";
+            case BIGINT -> "bigint";
+            case DOUBLE -> "float";
+            case VARCHAR -> "varchar(" + column.length() + ")";
+            case TEXT -> "varchar(max)";
+        };
+    }
+
+    @Override
+    protected void enableChangeCapture(Connection connection, TableSchema schema) throws SQLException {
+        try (var stmt = connection.prepareStatement("EXEC sys.sp_cdc_enable_table @source_schema = N'gingersnap', " +
+                "@source_name = ?, @role_name = NULL, @supports_net_changes = 0")) {
+            stmt.setString(1, schema.name());
+            stmt.execute();
+        }
+    }
+
+    @Override
+    protected void bulkInsert(Connection connection, CustomerGenerator generator, long firstId, long rows) throws SQLException {
+        // Bulk copy streams the rows using the TDS bulk load protocol instead of executing INSERT statements
+        var options = new SQLServerBulkCopyOptions();
+        options.setBatchSize(SEED_BATCH_ROWS);
+        options.setTableLock(true);
+        options.setBulkCopyTimeout(0);
+        try (var bulkCopy = new SQLServerBulkCopy(connection.unwrap(SQLServerConnection.class))) {
+            bulkCopy.setBulkCopyOptions(options);
+            bulkCopy.setDestinationTableName(CUSTOMER_TABLE);
+            bulkCopy.writeToServer(new CustomerBulkData(generator, firstId, rows));
+        }
+    }
+
+    // ISQLServerBulkData is Serializable, but the bulk copy reads the rows in process and never serializes the data
+    @SuppressWarnings("serial")
+    static class CustomerBulkData implements ISQLServerBulkData {
+        static final String[] COLUMNS = {"id", "fullname", "email"};
+
+        final CustomerGenerator generator;
+        final long endId;
+        long nextId;
+
+        CustomerBulkData(CustomerGenerator generator, long firstId, long rows) {
+            this.generator = generator;
+            this.nextId = firstId;
+            this.endId = firstId + rows;
+        }
+
+        @Override
+        public Set<Integer> getColumnOrdinals() {
+            return Set.of(1, 2, 3);
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column - 1];
+        }
+
+        @Override
+        public int getColumnType(int column) {
+            return column == 1 ? Types.INTEGER : Types.VARCHAR;
+        }
+
+        @Override
+        public int getPrecision(int column) {
+            return column == 1 ? 10 : 255;
+        }
+
+        @Override
+        public int getScale(int column) {
+            return 0;
+        }
+
+        @Override
+        public boolean next() {
+            return nextId < endId;
+        }
+
+        @Override
+        public Object[] getRowData() {
+            var customer = generator.customer(nextId++);
+            return new Object[]{customer.getId().intValue(), customer.getFullname(), customer.getEmail()};
+        }
+    }
 }
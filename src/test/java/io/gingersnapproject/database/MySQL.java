@@ -1,11 +1,21 @@
 package io.gingersnapproject.database;
 
+import io.gingersnapproject.data.CustomerGenerator;
+import io.gingersnapproject.data.TableSchema;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 public class MySQL extends AbstractDatabase {
 
+    // 3 parameters per row, well below the 65535 placeholders allowed per statement
+    static final int ROWS_PER_INSERT = 1_000;
+
     public MySQL() {
         super("mysql", 3306);
     }
@@ -23,6 +33,11 @@ public class MySQL extends AbstractDatabase {
         );
     }
 
+    @Override
+    protected String jdbcUrl(String host, int port) {
+        return String.format("jdbc:mysql://%s:%d/gingersnap", host, port);
+    }
+
     @Override
     public String select(Set<String> valueColumns, String table, List<String> whereColumns) {
         return "SELECT " +
@@ -34,4 +49,59 @@ public class MySQL extends AbstractDatabase {
                         .map(whereColumn -> whereColumn + " = ?")
                         .collect(Collectors.joining(" AND "));
     }
+
+    @Override
+    protected String columnType(TableSchema.Column column) {
+        return switch (column.type()) {
+            case INT -> "int";
+            case BIGINT -> "bigint";
+            case DOUBLE -> "double";
+            case VARCHAR -> "varchar(" + column.length() + ")";
+            // Up to 16MB, TEXT is limited to 64KB
+            case TEXT -> "mediumtext";
+        };
+    }
+
+    @Override
+    protected void bulkInsert(Connection connection, CustomerGenerator generator, long firstId, long rows) throws SQLException {
+        // Multi-row INSERTs avoid a round trip and statement parse per row
+        var fullStatements = rows / ROWS_PER_INSERT;
+        var statementsPerCommit = SEED_BATCH_ROWS / ROWS_PER_INSERT;
+        var id = firstId;
+        try (var stmt = connection.prepareStatement(multiRowInsert(ROWS_PER_INSERT))) {
+            for (long i = 0; i < fullStatements; i++) {
+                id = bind(stmt, generator, id, ROWS_PER_INSERT);
+                stmt.addBatch();
+                if ((i + 1) % statementsPerCommit == 0) {
+                    stmt.executeBatch();
+                    connection.commit();
+                }
+            }
+            stmt.executeBatch();
+        }
+
+        var remaining = (int) (rows % ROWS_PER_INSERT);
+        if (remaining > 0) {
+            try (var stmt = connection.prepareStatement(multiRowInsert(remaining))) {
+                bind(stmt, generator, id, remaining);
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    private static String multiRowInsert(int rows) {
+        return "INSERT INTO " + CUSTOMER_TABLE + " (id, fullname, email) VALUES " +
+                String.join(", ", Collections.nCopies(rows, "(?, ?, ?)"));
+    }
+
+    private static long bind(PreparedStatement stmt, CustomerGenerator generator, long firstId, int rows) throws SQLException {
+        var param = 1;
+        for (int i = 0; i < rows; i++) {
+            var customer = generator.customer(firstId + i);
+            stmt.setLong(param++, customer.getId());
+            stmt.setString(param++, customer.getFullname());
+            stmt.setString(param++, customer.getEmail());
+        }
+        return firstId + rows;
+    }
 }
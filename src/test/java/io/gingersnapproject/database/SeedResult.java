@@ -0,0 +1,23 @@
+package io.gingersnapproject.database;
+
+import java.time.Duration;
+
+/**
+ * The outcome of {@link Database#seed(long)}: rows with ids in the range {@code [firstId, lastId]} were inserted.
+ */
+public record SeedResult(String vendor, long firstId, long rows, Duration elapsed) {
+
+    public long lastId() {
+        return firstId + rows - 1;
+    }
+
+    public double rowsPerSecond() {
+        return rows * 1e9 / Math.max(1, elapsed.toNanos());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("vendor=%s rows=%d ids=[%d, %d] elapsed=%dms throughput=%.0frows/s",
+                vendor, rows, firstId, lastId(), elapsed.toMillis(), rowsPerSecond());
+    }
+}
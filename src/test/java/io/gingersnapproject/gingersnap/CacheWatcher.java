@@ -0,0 +1,104 @@
+package io.gingersnapproject.gingersnap;
+
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.kubernetes.Waits;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Completes futures when the value of a key of a rule satisfies a condition.
+ * <p>
+ * Gingersnap does not publish changes over HTTP, so the values are still observed by reading them. However, instead
+ * of every waiter polling on its own with a growing interval, a single task reads all awaited keys at a fixed interval
+ * with one pipelined {@link GingersnapClient#getAll} call and pushes the values to the waiters.
+ */
+public class CacheWatcher implements AutoCloseable {
+
+    record Watch(String key, Predicate<String> condition, CompletableFuture<String> future, long start, long deadline) {
+    }
+
+    final GingersnapClient client;
+    final String rule;
+    final ConcurrentLinkedQueue<Watch> watches = new ConcurrentLinkedQueue<>();
+    final ScheduledExecutorService scheduler;
+
+    public CacheWatcher(GingersnapClient client, String rule) {
+        this(client, rule, Benchmarks.millisProperty("watch.interval", 50));
+    }
+
+    public CacheWatcher(GingersnapClient client, String rule, Duration interval) {
+        this.client = client;
+        this.rule = rule;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Benchmarks.threadFactory("cache-watcher-" + rule));
+        scheduler.scheduleWithFixedDelay(this::poll, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param condition evaluated with the value of the key, or {@code null} if the key does not exist
+     * @return a future completed with the first value satisfying the condition, or completed exceptionally with a
+     * {@link TimeoutException} if the condition is not satisfied within {@code timeout}
+     */
+    public CompletableFuture<String> await(String key, Predicate<String> condition, Duration timeout) {
+        var start = System.nanoTime();
+        var watch = new Watch(key, condition, new CompletableFuture<>(), start, start + timeout.toNanos());
+        watches.add(watch);
+        return watch.future();
+    }
+
+    public CompletableFuture<String> awaitPresent(String key, Duration timeout) {
+        return await(key, Objects::nonNull, timeout);
+    }
+
+    public CompletableFuture<String> awaitAbsent(String key, Duration timeout) {
+        return await(key, Objects::isNull, timeout);
+    }
+
+    private void poll() {
+        if (watches.isEmpty())
+            return;
+
+        // Watches added while the values are read are only evaluated by the next poll, as their key was not read
+        var polled = List.copyOf(watches);
+        var keys = polled.stream().map(Watch::key).collect(Collectors.toSet());
+        try {
+            var values = client.getAll(rule, keys).join();
+            var now = System.nanoTime();
+            for (var watch : polled) {
+                var value = values.get(watch.key());
+                var description = String.format("rule %s key %s", rule, watch.key());
+                if (watch.condition().test(value)) {
+                    watches.remove(watch);
+                    Waits.record(description, watch.start(), true);
+                    watch.future().complete(value);
+                } else if (now - watch.deadline() > 0) {
+                    watches.remove(watch);
+                    Waits.record(description, watch.start(), false);
+                    watch.future().completeExceptionally(new TimeoutException(description + " not satisfied"));
+                }
+            }
+        } catch (Throwable t) {
+            // Fail the waiters of the failed request instead of silently stopping the scheduled task, the watches
+            // added since are evaluated by the next poll
+            for (var watch : polled) {
+                watches.remove(watch);
+                watch.future().completeExceptionally(t);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        watches.forEach(watch -> watch.future().cancel(true));
+    }
+}
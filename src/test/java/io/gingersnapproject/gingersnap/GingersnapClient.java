@@ -1,15 +1,36 @@
 package io.gingersnapproject.gingersnap;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 import io.gingersnap_project.v1alpha1.Cache;
 import io.gingersnapproject.kubernetes.Util;
 
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.anyOf;
@@ -17,35 +38,78 @@ import static org.hamcrest.core.Is.is;
 
 public class GingersnapClient {
 
+    /**
+     * @param version        the preferred HTTP version, HTTP/2 falls back to HTTP/1.1 if the server does not upgrade
+     * @param connectTimeout the maximum time to establish a connection
+     * @param requestTimeout the maximum time to wait for a response
+     * @param maxInFlight    the maximum number of concurrent requests issued by the multi-key operations. With HTTP/1.1
+     *                       this also bounds the number of pooled connections, as every in-flight request requires its
+     *                       own connection. The JVM wide pool can be further limited with
+     *                       {@code -Djdk.httpclient.connectionPoolSize}
+     */
+    public record Options(HttpClient.Version version, Duration connectTimeout, Duration requestTimeout,
+                          int maxInFlight) {
+        public static final Options DEFAULT = new Options(HttpClient.Version.HTTP_2, Duration.ofSeconds(10), Duration.ofSeconds(30), 64);
+
+        public Options withVersion(HttpClient.Version version) {
+            return new Options(version, connectTimeout, requestTimeout, maxInFlight);
+        }
+
+        public Options withMaxInFlight(int maxInFlight) {
+            return new Options(version, connectTimeout, requestTimeout, maxInFlight);
+        }
+    }
+
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final Gson GSON = new Gson();
+
     public static GingersnapClient of(Cache cache){
+        return of(cache, DEFAULT_PORT);
+    }
+
+    /**
+     * @param localPort the local port forwarded to the cache when {@link Util#LOCAL_TEST_EXECUTION}
+     */
+    public static GingersnapClient of(Cache cache, int localPort) {
         URI uri;
         if (Util.LOCAL_TEST_EXECUTION) {
-            uri = URI.create("http://localhost:8080");
+            uri = URI.create("http://localhost:" + localPort);
         } else {
             var meta = cache.getMetadata();
             uri = URI.create(String.format("http://%s.%s.svc.cluster.local", meta.getName(), meta.getNamespace()));
         }
-        return new GingersnapClient(uri);
+        return of(uri);
+    }
+
+    public static GingersnapClient of(URI uri) {
+        return of(uri, Options.DEFAULT);
+    }
+
+    public static GingersnapClient of(URI uri, Options options) {
+        return new GingersnapClient(uri, options);
     }
 
     final HttpClient client;
     final URI uri;
+    final Options options;
+
+    private GingersnapClient(URI uri, Options options) {
+        if (options.maxInFlight() < 1)
+            throw new IllegalArgumentException("maxInFlight must be positive");
 
-    private GingersnapClient(URI uri) {
-        this.client = HttpClient.newHttpClient();
+        this.client = HttpClient.newBuilder()
+                .version(options.version())
+                .connectTimeout(options.connectTimeout())
+                .build();
         this.uri = uri;
+        this.options = options;
     }
 
     public String get(String rule, String key) {
-        var path = String.format("/rules/%s/%s", rule, key);
-        var req = HttpRequest.newBuilder()
-                .uri(uri.resolve(path))
-                .build();
         try {
-            var rsp = client.send(req, HttpResponse.BodyHandlers.ofString());
-            var code = rsp.statusCode();
-            assertThat(code, anyOf(is(200), is(404)));
-            return code == 200 ? rsp.body() : null;
+            var rsp = client.send(getRequest(rule, key), HttpResponse.BodyHandlers.ofString());
+            return body(rsp);
         } catch (InterruptedException | IOException e) {
             throw new RuntimeException(e);
         }
@@ -56,6 +120,90 @@ public class GingersnapClient {
         return fromJson(json, entity);
     }
 
+    /**
+     * @return a future completed with the value, or {@code null} if the key does not exist
+     */
+    public CompletableFuture<String> getAsync(String rule, String key) {
+        return client.sendAsync(getRequest(rule, key), HttpResponse.BodyHandlers.ofString())
+                .thenApply(GingersnapClient::body);
+    }
+
+    public <T> CompletableFuture<T> getAsync(String rule, String key, Class<T> entity) {
+        return getAsync(rule, key).thenApply(json -> fromJson(json, entity));
+    }
+
+    /**
+     * Retrieves multiple keys concurrently, with at most {@link Options#maxInFlight()} requests outstanding at any
+     * time.
+     *
+     * @return a future completed with the values in the iteration order of {@code keys}. Keys that do not exist are
+     * absent from the map
+     */
+    public CompletableFuture<Map<String, String>> getAll(String rule, Collection<String> keys) {
+        var keyList = List.copyOf(keys);
+        var values = new AtomicReferenceArray<String>(keyList.size());
+        var remaining = new AtomicInteger(keyList.size());
+        var next = new AtomicInteger();
+        var result = new CompletableFuture<Map<String, String>>();
+        if (keyList.isEmpty()) {
+            result.complete(Map.of());
+            return result;
+        }
+
+        // Every completed request issues the request for the next unclaimed key, keeping maxInFlight requests busy
+        var issueNext = new Runnable() {
+            @Override
+            public void run() {
+                var index = next.getAndIncrement();
+                if (index >= keyList.size() || result.isDone())
+                    return;
+
+                getAsync(rule, keyList.get(index)).whenComplete((value, t) -> {
+                    if (t != null) {
+                        result.completeExceptionally(t);
+                        return;
+                    }
+                    values.set(index, value);
+                    if (remaining.decrementAndGet() == 0) {
+                        var map = new LinkedHashMap<String, String>();
+                        for (int i = 0; i < keyList.size(); i++) {
+                            if (values.get(i) != null) map.put(keyList.get(i), values.get(i));
+                        }
+                        result.complete(map);
+                    } else {
+                        run();
+                    }
+                });
+            }
+        };
+        for (int i = 0; i < Math.min(options.maxInFlight(), keyList.size()); i++)
+            issueNext.run();
+        return result;
+    }
+
+    public <T> CompletableFuture<Map<String, T>> getAll(String rule, Collection<String> keys, Class<T> entity) {
+        return getAll(rule, keys).thenApply(values -> {
+            var result = new LinkedHashMap<String, T>();
+            values.forEach((key, json) -> result.put(key, fromJson(json, entity)));
+            return result;
+        });
+    }
+
+    private HttpRequest getRequest(String rule, String key) {
+        // Keys in the JSON format or with a separator contain characters that are not allowed in a path
+        var path = String.format("/rules/%s/%s", rule, URLEncoder.encode(key, StandardCharsets.UTF_8).replace("+", "%20"));
+        return HttpRequest.newBuilder()
+                .uri(uri.resolve(path))
+                .timeout(options.requestTimeout())
+                .build();
+    }
+
+    private static String body(HttpResponse<String> rsp) {
+        var code = rsp.statusCode();
+        assertThat(code, anyOf(is(200), is(404)));
+        return code == 200 ? rsp.body() : null;
+    }
+
     public Stream<String> getAllKeys(String rule) {
         var rsp = getAllKeysRsp(rule);
         assertThat(rsp.statusCode(), is(200));
@@ -75,15 +223,174 @@ public class GingersnapClient {
         }
     }
 
+    /**
+     * Streams the keys of a rule as they are parsed from the response, so that only the current key is held in
+     * memory. The stream must be closed to release the connection.
+     */
+    public Stream<String> streamKeys(String rule) {
+        var keys = openKeys(rule, true);
+        var iterator = new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return keys.reader.hasNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public String next() {
+                try {
+                    return keys.reader.nextString();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        keys.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Reads every key of a rule as it is received, without holding the keys in memory, measuring the time to the first
+     * key and the size of the response.
+     */
+    public KeyScan scanKeys(String rule) {
+        var start = System.nanoTime();
+        try (var keys = openKeys(rule, true)) {
+            var count = keys.forEach(1, key -> {});
+            var firstKey = System.nanoTime() - start;
+            count += keys.forEach(Long.MAX_VALUE, key -> {});
+            keys.reader.endArray();
+            var elapsed = System.nanoTime() - start;
+            return new KeyScan(count, keys.body.count, Duration.ofNanos(count == 0 ? elapsed : firstKey), Duration.ofNanos(elapsed));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public boolean isRuleDefined(String name) {
         return getAllKeysRsp(name).statusCode() == 200;
     }
 
-    private <T> T fromJson(String json, Class<T> entity) {
+    /**
+     * Counts the keys of a rule without holding them in memory.
+     *
+     * @return the number of keys, or -1 if the rule is not defined
+     */
+    public long countKeys(String rule) {
+        return countKeys(rule, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return true if the rule is defined and contains at least one key, only the start of the key listing is read
+     */
+    public boolean hasKeys(String rule) {
+        return countKeys(rule, 1) > 0;
+    }
+
+    private long countKeys(String rule, long limit) {
+        try (var keys = openKeys(rule, false)) {
+            return keys == null ? -1 : keys.forEach(limit, key -> {});
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Requests the keys of a rule, positioning the reader on the first one.
+     *
+     * @param required whether the rule must be defined, otherwise {@code null} is returned when it is not
+     */
+    private KeyReader openKeys(String rule, boolean required) {
+        var req = HttpRequest.newBuilder()
+                .uri(uri.resolve(String.format("/rules/%s", rule)))
+                .build();
+        try {
+            var rsp = client.send(req, HttpResponse.BodyHandlers.ofInputStream());
+            if (rsp.statusCode() != 200) {
+                rsp.body().close();
+                if (rsp.statusCode() == 404 && !required)
+                    return null;
+                assertThat(rsp.statusCode(), is(200));
+            }
+            return new KeyReader(rsp.body());
+        } catch (InterruptedException | IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The keys of a rule, read one at a time from the response as it is received.
+     */
+    private static class KeyReader implements Closeable {
+        final CountingInputStream body;
+        final JsonReader reader;
+
+        KeyReader(InputStream in) throws IOException {
+            body = new CountingInputStream(in);
+            reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            try {
+                reader.beginArray();
+            } catch (IOException e) {
+                reader.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Passes the next keys to {@code consumer}, at most {@code limit} of them.
+         *
+         * @return the number of keys read
+         */
+        long forEach(long limit, Consumer<String> consumer) throws IOException {
+            long count = 0;
+            while (count < limit && reader.hasNext()) {
+                consumer.accept(reader.nextString());
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            var b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            var n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+
+    private static <T> T fromJson(String json, Class<T> entity) {
         if (json == null)
             return null;
 
-        return new Gson()
-                .fromJson(json, entity);
+        return GSON.fromJson(json, entity);
     }
 }
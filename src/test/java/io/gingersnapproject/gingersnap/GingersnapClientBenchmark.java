@@ -0,0 +1,100 @@
+package io.gingersnapproject.gingersnap;
+
+import io.gingersnapproject.benchmark.Benchmarks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the blocking and the async {@link GingersnapClient} paths against a {@link StubGingersnapServer}, so that
+ * client overhead can be told apart from cache latency. The {@code *Batch} benchmarks retrieve {@link #BATCH_SIZE} keys
+ * per operation, either one request at a time or pipelined with {@link GingersnapClient#getAll}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Isolated
+public class GingersnapClientBenchmark {
+
+    static final String RULE = "jmh-rule";
+    static final int KEYS = 1000;
+    static final int BATCH_SIZE = 100;
+
+    @Param({"HTTP_1_1", "HTTP_2"})
+    String version;
+
+    StubGingersnapServer server;
+    GingersnapClient client;
+    List<String> batch;
+    int counter;
+
+    @Setup
+    public void setup() {
+        server = StubGingersnapServer.start();
+        for (int i = 0; i < KEYS; i++)
+            server.put(RULE, Integer.toString(i), String.format("{\"fullname\":\"Customer %1$d\",\"email\":\"customer%1$d@example.com\"}", i));
+
+        var options = GingersnapClient.Options.DEFAULT.withVersion(HttpClient.Version.valueOf(version));
+        client = GingersnapClient.of(server.uri(), options);
+        batch = IntStream.range(0, BATCH_SIZE).mapToObj(Integer::toString).collect(Collectors.toList());
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    String nextKey() {
+        return Integer.toString(counter++ % KEYS);
+    }
+
+    @Benchmark
+    public String blockingGet() {
+        return client.get(RULE, nextKey());
+    }
+
+    @Benchmark
+    public String asyncGet() {
+        return client.getAsync(RULE, nextKey()).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int blockingBatch() {
+        int found = 0;
+        for (var key : batch) {
+            if (client.get(RULE, key) != null) found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int asyncBatch() {
+        return client.getAll(RULE, batch).join().size();
+    }
+
+    @Test
+    public void run() throws Exception {
+        Files.createDirectories(Benchmarks.OUTPUT_DIR);
+        var options = new OptionsBuilder()
+                .include(GingersnapClientBenchmark.class.getName())
+                .resultFormat(ResultFormatType.JSON)
+                .result(Benchmarks.OUTPUT_DIR.resolve(GingersnapClientBenchmark.class.getSimpleName() + ".json").toString())
+                .build();
+        new Runner(options).run();
+    }
+}
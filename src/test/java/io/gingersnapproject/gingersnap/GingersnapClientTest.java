@@ -0,0 +1,115 @@
+package io.gingersnapproject.gingersnap;
+
+import io.gingersnapproject.data.Customer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class GingersnapClientTest {
+
+    static final String RULE = "client-rule";
+
+    StubGingersnapServer server;
+    GingersnapClient gingersnap;
+
+    @BeforeAll
+    public void beforeAll() {
+        server = StubGingersnapServer.start();
+        for (int i = 0; i < 500; i++)
+            server.put(RULE, Integer.toString(i), String.format("{\"fullname\":\"Customer %1$d\",\"email\":\"customer%1$d@example.com\"}", i));
+        gingersnap = GingersnapClient.of(server.uri(), GingersnapClient.Options.DEFAULT.withMaxInFlight(8));
+    }
+
+    @AfterAll
+    public void afterAll() {
+        if (server != null) server.close();
+    }
+
+    @Test
+    public void testGetAsync() {
+        assertThat(gingersnap.getAsync(RULE, "1", Customer.class).join(), equalTo(new Customer("Customer 1", "customer1@example.com")));
+        assertThat(gingersnap.getAsync(RULE, "unknown").join(), nullValue());
+        assertThat(gingersnap.getAsync(RULE, "1").join(), equalTo(gingersnap.get(RULE, "1")));
+    }
+
+    @Test
+    public void testGetCompositeKey() {
+        var rule = "composite-rule";
+        for (var key : List.of("{\"k0\":1,\"k1\":\"k23 b\"}", "1|k23|45", "a/b?c#d%e+f"))
+            server.put(rule, key, "{\"value\":1}");
+        assertThat(gingersnap.get(rule, "{\"k0\":1,\"k1\":\"k23 b\"}"), equalTo("{\"value\":1}"));
+        assertThat(gingersnap.get(rule, "1|k23|45"), equalTo("{\"value\":1}"));
+        assertThat(gingersnap.get(rule, "a/b?c#d%e+f"), equalTo("{\"value\":1}"));
+        assertThat(gingersnap.get(rule, "1|k23"), nullValue());
+    }
+
+    @Test
+    public void testGetAll() {
+        var keys = IntStream.range(490, 510).mapToObj(Integer::toString).collect(Collectors.toList());
+        var values = gingersnap.getAll(RULE, keys, Customer.class).join();
+
+        assertThat(values.keySet(), contains(keys.subList(0, 10).toArray()));
+        assertThat(values.get("495"), equalTo(new Customer("Customer 495", "customer495@example.com")));
+        assertThat(gingersnap.getAll(RULE, List.of()).join().entrySet(), empty());
+    }
+
+    @Test
+    public void testCountKeys() {
+        assertThat(gingersnap.countKeys(RULE), is(500L));
+        assertThat(gingersnap.hasKeys(RULE), is(true));
+        assertThat(gingersnap.countKeys("unknown"), is(-1L));
+
+        server.rule("empty-rule");
+        assertThat(gingersnap.countKeys("empty-rule"), is(0L));
+        assertThat(gingersnap.hasKeys("empty-rule"), is(false));
+    }
+
+    @Test
+    public void testStreamKeys() {
+        try (var keys = gingersnap.streamKeys(RULE)) {
+            assertThat(keys.mapToInt(Integer::parseInt).sorted().toArray(), equalTo(IntStream.range(0, 500).toArray()));
+        }
+    }
+
+    @Test
+    public void testScanKeys() {
+        var scan = gingersnap.scanKeys(RULE);
+        assertThat(scan.keys(), is(500L));
+        // ["0","1",...,"499"]
+        assertThat(scan.bytes(), is(2L + 500 * 3 - 1 + IntStream.range(0, 500).map(i -> Integer.toString(i).length()).sum()));
+        assertThat(scan.timeToFirstKey(), lessThanOrEqualTo(scan.elapsed()));
+    }
+
+    @Test
+    public void testCacheWatcher() {
+        try (var watcher = new CacheWatcher(gingersnap, RULE, Duration.ofMillis(10))) {
+            var present = watcher.awaitPresent("new-key", Duration.ofSeconds(10));
+            var absent = watcher.awaitAbsent("0", Duration.ofSeconds(10));
+            var timeout = watcher.awaitAbsent("1", Duration.ofMillis(100));
+
+            server.put(RULE, "new-key", "{}");
+            server.remove(RULE, "0");
+            assertThat(present.join(), is("{}"));
+            assertThat(absent.join(), nullValue());
+
+            var e = assertThrows(CompletionException.class, timeout::join);
+            assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        } finally {
+            server.remove(RULE, "new-key");
+            server.put(RULE, "0", "{\"fullname\":\"Customer 0\",\"email\":\"customer0@example.com\"}");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.gingersnapproject.gingersnap;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.LocalPortForward;
+import io.gingersnapproject.benchmark.ReadLoadGenerator;
+import io.gingersnapproject.kubernetes.Util;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * One {@link GingersnapClient} per ready cache pod of a namespace, so that client load can be spread over all the
+ * replicas of a {@code CLUSTER} deployment instead of going through a single port forward or the service. When
+ * {@link Util#LOCAL_TEST_EXECUTION} every pod is reached through its own port forward, otherwise through its IP.
+ */
+public class GingersnapCluster implements AutoCloseable {
+
+    public static GingersnapCluster of(KubernetesClient k8s, String namespace, GingersnapClient.Options options) {
+        var pods = Util.readyPods(k8s, namespace, "infinispan");
+        assertThat(pods, not(empty()));
+        return new GingersnapCluster(k8s, pods, options);
+    }
+
+    final List<String> pods = new ArrayList<>();
+    final List<GingersnapClient> clients = new ArrayList<>();
+    final List<LocalPortForward> forwards = new ArrayList<>();
+    final AtomicInteger next = new AtomicInteger();
+
+    private GingersnapCluster(KubernetesClient k8s, List<Pod> pods, GingersnapClient.Options options) {
+        try {
+            for (var pod : pods) {
+                URI uri;
+                if (Util.LOCAL_TEST_EXECUTION) {
+                    var forward = Util.forwardPort(k8s, pod, GingersnapClient.DEFAULT_PORT, 0);
+                    forwards.add(forward);
+                    uri = URI.create("http://localhost:" + forward.getLocalPort());
+                } else {
+                    uri = URI.create(String.format("http://%s:%d", pod.getStatus().getPodIP(), GingersnapClient.DEFAULT_PORT));
+                }
+                this.pods.add(pod.getMetadata().getName());
+                clients.add(GingersnapClient.of(uri, options));
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    public List<String> pods() {
+        return pods;
+    }
+
+    public List<GingersnapClient> clients() {
+        return clients;
+    }
+
+    /**
+     * @return the clients in turn
+     */
+    public GingersnapClient next() {
+        return clients.get(Math.floorMod(next.getAndIncrement(), clients.size()));
+    }
+
+    /**
+     * @return a reader sending every request to the next pod in turn
+     */
+    public ReadLoadGenerator.Reader reader(String rule) {
+        return key -> next().get(rule, key);
+    }
+
+    @Override
+    public void close() {
+        for (var forward : forwards) {
+            try {
+                forward.close();
+            } catch (IOException e) {
+                System.out.printf("Unable to close port forward: %s\n", e);
+            }
+        }
+        forwards.clear();
+    }
+}
@@ -0,0 +1,29 @@
+package io.gingersnapproject.gingersnap;
+
+import java.time.Duration;
+
+/**
+ * The cost of enumerating the keys of a rule with {@link GingersnapClient#scanKeys(String)}.
+ *
+ * @param keys           the number of keys
+ * @param bytes          the size of the response body
+ * @param timeToFirstKey the time from sending the request until the first key was parsed, or the whole scan if the
+ *                       rule has no keys
+ * @param elapsed        the time from sending the request until the last key was parsed
+ */
+public record KeyScan(long keys, long bytes, Duration timeToFirstKey, Duration elapsed) {
+
+    public double keysPerSecond() {
+        return keys * 1e9 / elapsed.toNanos();
+    }
+
+    public double bytesPerSecond() {
+        return bytes * 1e9 / elapsed.toNanos();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("keys=%d bytes=%d firstKey=%dms elapsed=%dms throughput=%.0fkeys/s (%.1fMiB/s)",
+                keys, bytes, timeToFirstKey.toMillis(), elapsed.toMillis(), keysPerSecond(), bytesPerSecond() / (1 << 20));
+    }
+}
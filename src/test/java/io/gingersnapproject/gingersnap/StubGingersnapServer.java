@@ -0,0 +1,154 @@
+package io.gingersnapproject.gingersnap;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.gingersnapproject.benchmark.Benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local HTTP server exposing the {@code /rules/{rule}} and {@code /rules/{rule}/{key}} endpoints of a Gingersnap cache
+ * from in-memory maps, so that client side tooling can be exercised without a cluster.
+ * <p>
+ * Responses can be delayed by a configurable latency, to emulate the network and the server. Delayed responses are
+ * scheduled rather than slept on, so that the latency does not bound the throughput of the server.
+ */
+public class StubGingersnapServer implements Closeable {
+
+    static {
+        // Response headers and body are written separately, without TCP_NODELAY every response is delayed by the
+        // client's delayed ACK. Must be set before the JDK server configuration is first loaded.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    public static StubGingersnapServer start() {
+        return start(Runtime.getRuntime().availableProcessors());
+    }
+
+    public static StubGingersnapServer start(int threads) {
+        try {
+            var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            return new StubGingersnapServer(server, threads);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    final Map<String, Map<String, String>> rules = new ConcurrentHashMap<>();
+    final Gson gson = new Gson();
+    final HttpServer server;
+    final ExecutorService executor;
+    // Created by the first non-zero latency
+    volatile ScheduledExecutorService scheduler;
+    volatile long latencyNanos;
+    volatile long jitterNanos;
+
+    private StubGingersnapServer(HttpServer server, int threads) {
+        this.server = server;
+        this.executor = Executors.newFixedThreadPool(threads, Benchmarks.threadFactory("stub-gingersnap"));
+        server.setExecutor(executor);
+        server.createContext("/rules/", this::handle);
+        server.start();
+    }
+
+    public URI uri() {
+        var address = server.getAddress();
+        return URI.create(String.format("http://%s:%d", address.getHostString(), address.getPort()));
+    }
+
+    public StubGingersnapServer rule(String rule) {
+        rules.computeIfAbsent(rule, r -> new ConcurrentHashMap<>());
+        return this;
+    }
+
+    /**
+     * Delays every response by {@code latency} plus a uniformly distributed random delay of up to {@code jitter}.
+     */
+    public synchronized StubGingersnapServer latency(Duration latency, Duration jitter) {
+        if (scheduler == null && !(latency.isZero() && jitter.isZero()))
+            scheduler = Executors.newSingleThreadScheduledExecutor(Benchmarks.threadFactory("stub-gingersnap-delay"));
+        this.latencyNanos = latency.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        return this;
+    }
+
+    public StubGingersnapServer removeRule(String rule) {
+        rules.remove(rule);
+        return this;
+    }
+
+    public StubGingersnapServer put(String rule, String key, String value) {
+        rules.computeIfAbsent(rule, r -> new ConcurrentHashMap<>()).put(key, value);
+        return this;
+    }
+
+    public StubGingersnapServer remove(String rule, String key) {
+        var entries = rules.get(rule);
+        if (entries != null) entries.remove(key);
+        return this;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        var delay = latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0);
+        if (delay == 0) {
+            respond(exchange);
+        } else {
+            scheduler.schedule(() -> executor.execute(() -> {
+                try {
+                    respond(exchange);
+                } catch (IOException e) {
+                    // The client is gone
+                }
+            }), delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            // /rules/{rule}[/{key}]
+            var segments = exchange.getRequestURI().getPath().split("/", 4);
+            var entries = segments.length > 2 ? rules.get(segments[2]) : null;
+            if (entries == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            String body;
+            if (segments.length == 3) {
+                body = gson.toJson(entries.keySet());
+            } else {
+                body = entries.get(segments[3]);
+                if (body == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+            }
+            var bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        if (scheduler != null) scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+}
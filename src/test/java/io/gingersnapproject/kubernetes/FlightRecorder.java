@@ -0,0 +1,257 @@
+package io.gingersnapproject.kubernetes;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.gingersnapproject.benchmark.Benchmarks;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Records the test JVM and the JVM based containers of a test namespace with Java Flight Recorder, for the length of a
+ * test.
+ * <p>
+ * Recordings are written to {@code test-output/jfr/<test>-<namespace>-<target>.jfr}, each with a
+ * {@code .txt} summary of its hottest methods and top allocation sites. The recording of the test JVM covers every
+ * test running concurrently, which is why benchmarks are isolated. Containers are recorded with {@code jcmd}, executed
+ * in the container through the Kubernetes API, so containers without {@code jcmd}, such as native executables, are
+ * skipped, as are all the containers once the role of the tests is found not to be allowed to execute commands in
+ * pods.
+ * <p>
+ * Configured with system properties:
+ * <ul>
+ *     <li>{@code gingersnap.jfr.enabled}: records when true, false by default</li>
+ *     <li>{@code gingersnap.jfr.settings}: the JFR configuration, {@code default} or {@code profile}</li>
+ *     <li>{@code gingersnap.jfr.targets}: comma separated {@code target=pod-name/container} entries, where
+ *     {@code pod-name} is the {@code app.kubernetes.io/name} label of the pods. Every ready pod is recorded</li>
+ *     <li>{@code gingersnap.jfr.top}: the number of methods and allocation sites in the summaries</li>
+ * </ul>
+ */
+public class FlightRecorder implements AutoCloseable {
+
+    public static final boolean ENABLED = Boolean.getBoolean("gingersnap.jfr.enabled");
+    static final String SETTINGS = System.getProperty("gingersnap.jfr.settings", "profile");
+    static final int TOP = Integer.getInteger("gingersnap.jfr.top", 20);
+    static final List<Target> TARGETS = Arrays.stream(System.getProperty("gingersnap.jfr.targets",
+                    "cache=infinispan/cache-manager,db-syncer=infinispan/db-syncer").split(","))
+            .map(String::trim)
+            .map(Target::parse)
+            .collect(Collectors.toList());
+    static final Path OUTPUT_DIR = Benchmarks.OUTPUT_DIR.resolveSibling("jfr");
+    static final Duration EXEC_TIMEOUT = Duration.ofMinutes(1);
+    static final String RECORDING = "gingersnap-e2e";
+    static final String REMOTE_FILE = "/tmp/" + RECORDING + ".jfr";
+    // The first JVM listed by jcmd other than jcmd itself, usually pid 1
+    static final String JCMD = "command -v jcmd >/dev/null || exit 42; " +
+            "jcmd $(jcmd -l | grep -v sun.tools.jcmd | head -1 | cut -d' ' -f1) ";
+    // Set once executing a command in a pod was forbidden, so that containers are no longer recorded
+    static final AtomicBoolean EXEC_FORBIDDEN = new AtomicBoolean();
+
+    record Target(String name, String pod, String container) {
+        static Target parse(String spec) {
+            var parts = spec.split("[=/]");
+            if (parts.length != 3)
+                throw new IllegalArgumentException("Expected target=pod-name/container: " + spec);
+            return new Target(parts[0], parts[1], parts[2]);
+        }
+    }
+
+    record Remote(Target target, String pod) {
+    }
+
+    /**
+     * @return a recorder of the test JVM, or {@code null} if recording is disabled
+     */
+    public static FlightRecorder start(KubernetesClient k8s, String namespace, String test) {
+        if (!ENABLED)
+            return null;
+        return new FlightRecorder(k8s, namespace, test);
+    }
+
+    final KubernetesClient k8s;
+    final String namespace;
+    final String prefix;
+    final Recording recording;
+    final List<Remote> remotes = new ArrayList<>();
+
+    FlightRecorder(KubernetesClient k8s, String namespace, String test) {
+        this.k8s = k8s;
+        this.namespace = namespace;
+        this.prefix = test + "-" + namespace;
+        try {
+            recording = new Recording(Configuration.getConfiguration(SETTINGS));
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unable to load JFR configuration " + SETTINGS, e);
+        }
+        recording.setName(RECORDING);
+        recording.start();
+    }
+
+    /**
+     * Starts recording the ready pods of the targets. Called once the pods are ready, pods started later are not
+     * recorded.
+     */
+    public void attach() {
+        for (var target : TARGETS) {
+            for (var pod : Util.readyPods(k8s, namespace, target.pod)) {
+                if (EXEC_FORBIDDEN.get())
+                    return;
+                var remote = new Remote(target, pod.getMetadata().getName());
+                var exitCode = jcmd(remote, String.format("JFR.start name=%s settings=%s", RECORDING, SETTINGS));
+                if (exitCode == 0) {
+                    remotes.add(remote);
+                } else if (!EXEC_FORBIDDEN.get()) {
+                    System.out.printf("Unable to record '%s' of pod '%s', jcmd exited with %d%s\n", target.container,
+                            remote.pod, exitCode, exitCode == 42 ? ": not found" : "");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        recording.stop();
+        try {
+            Files.createDirectories(OUTPUT_DIR);
+            var local = OUTPUT_DIR.resolve(prefix + "-test.jfr");
+            recording.dump(local);
+            summarize(local);
+        } catch (IOException e) {
+            System.out.printf("Unable to write the recording of the test JVM: %s\n", e);
+        } finally {
+            recording.close();
+        }
+
+        for (var remote : remotes) {
+            try {
+                var exitCode = jcmd(remote, String.format("JFR.stop name=%s filename=%s", RECORDING, REMOTE_FILE));
+                if (exitCode != 0)
+                    throw new IllegalStateException("jcmd exited with " + exitCode);
+                var path = OUTPUT_DIR.resolve(String.format("%s-%s-%s.jfr", prefix, remote.target.name, remote.pod));
+                k8s.pods()
+                        .inNamespace(namespace)
+                        .withName(remote.pod)
+                        .inContainer(remote.target.container)
+                        .file(REMOTE_FILE)
+                        .copy(path);
+                summarize(path);
+            } catch (Exception e) {
+                System.out.printf("Unable to retrieve the recording of '%s' of pod '%s': %s\n", remote.target.container, remote.pod, e);
+            }
+        }
+        remotes.clear();
+    }
+
+    private int jcmd(Remote remote, String command) {
+        var output = new ByteArrayOutputStream();
+        try (var exec = k8s.pods()
+                .inNamespace(namespace)
+                .withName(remote.pod)
+                .inContainer(remote.target.container)
+                .writingOutput(output)
+                .writingError(output)
+                .exec("sh", "-c", JCMD + command)) {
+            return exec.exitCode().get(EXEC_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            if (Util.isForbidden(e)) {
+                if (EXEC_FORBIDDEN.compareAndSet(false, true))
+                    System.out.printf("Not allowed to execute commands in pods, containers are not recorded: %s\n", e);
+                return -1;
+            }
+            System.out.printf("jcmd %s failed in pod '%s': %s\n%s", command, remote.pod, e, output.toString(StandardCharsets.UTF_8));
+            return -1;
+        }
+    }
+
+    /**
+     * Writes the hottest methods, by number of execution samples of their top frame, and the top allocation sites, by
+     * sampled allocation weight of the allocating frame and allocated class, next to the recording.
+     */
+    static Path summarize(Path recording) throws IOException {
+        var methods = new HashMap<String, Long>();
+        var allocations = new HashMap<String, Long>();
+        try (var file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                var event = file.readEvent();
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> methods.merge(topFrame(event), 1L, Long::sum);
+                    case "jdk.ObjectAllocationSample" -> allocations.merge(
+                            typeName(event.getClass("objectClass").getName()) + " at " + topFrame(event), event.getLong("weight"), Long::sum);
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        var samples = methods.values().stream().mapToLong(Long::longValue).sum();
+        var allocated = allocations.values().stream().mapToLong(Long::longValue).sum();
+        var summary = new StringBuilder();
+        summary.append(String.format("Hot methods (%d execution samples)\n", samples));
+        top(methods).forEach(e -> summary.append(String.format("%6.2f%% %8d  %s\n", 100.0 * e.getValue() / Math.max(1, samples), e.getValue(), e.getKey())));
+        summary.append(String.format("\nTop allocation sites (%d MB sampled)\n", allocated >> 20));
+        top(allocations).forEach(e -> summary.append(String.format("%6.2f%% %8d MB  %s\n", 100.0 * e.getValue() / Math.max(1, allocated), e.getValue() >> 20, e.getKey())));
+
+        var path = recording.resolveSibling(recording.getFileName().toString().replaceFirst("\\.jfr$", ".txt"));
+        Files.writeString(path, summary);
+        System.out.printf("Flight recording written to '%s', summary to '%s'\n", recording, path);
+        return path;
+    }
+
+    private static String topFrame(RecordedEvent event) {
+        var stackTrace = event.getStackTrace();
+        if (stackTrace == null || stackTrace.getFrames().isEmpty())
+            return "<unknown>";
+        RecordedFrame frame = stackTrace.getFrames().get(0);
+        var method = frame.getMethod();
+        return method.getType().getName() + "." + method.getName() + (frame.isJavaFrame() ? ":" + frame.getLineNumber() : "");
+    }
+
+    /**
+     * @return the Java name of a class name, e.g. {@code byte[]} for {@code [B}
+     */
+    private static String typeName(String name) {
+        var dimensions = 0;
+        while (name.charAt(dimensions) == '[')
+            dimensions++;
+        if (dimensions == 0)
+            return name;
+        var element = switch (name.charAt(dimensions)) {
+            case 'Z' -> "boolean";
+            case 'B' -> "byte";
+            case 'C' -> "char";
+            case 'S' -> "short";
+            case 'I' -> "int";
+            case 'J' -> "long";
+            case 'F' -> "float";
+            case 'D' -> "double";
+            default -> name.substring(dimensions + 1, name.length() - 1);
+        };
+        return element + "[]".repeat(dimensions);
+    }
+
+    private static List<Map.Entry<String, Long>> top(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,38 @@
+package io.gingersnapproject.kubernetes;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+
+public class FlightRecorderTest {
+
+    @Test
+    public void testSummarize(@TempDir Path dir) throws Exception {
+        var path = dir.resolve("recording.jfr");
+        try (var recording = new Recording(Configuration.getConfiguration("profile"))) {
+            recording.start();
+            var retained = new ArrayList<byte[]>();
+            var end = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (System.nanoTime() < end) {
+                retained.add(new byte[1024]);
+                if (retained.size() > 1000) retained.clear();
+            }
+            recording.stop();
+            recording.dump(path);
+        }
+
+        var summary = Files.readString(FlightRecorder.summarize(path));
+        assertThat(summary, containsString("Hot methods"));
+        assertThat(summary, containsString("Top allocation sites"));
+        assertThat(summary, containsString("byte[] at " + FlightRecorderTest.class.getName() + ".testSummarize"));
+    }
+}
@@ -9,9 +9,18 @@ import org.junit.jupiter.api.extension.ParameterResolver;
 
 public class KubernetesClientResolver implements ParameterResolver {
 
+    // KubernetesClient is thread-safe, a single instance is shared by all tests so that concurrently executing
+    // classes reuse the same connection pool and informer threads
+    private static class Holder {
+        static final KubernetesClient CLIENT = MockCluster.ENABLED ?
+                MockCluster.instance().client() :
+                new KubernetesClientBuilder().build();
+    }
+
     public static KubernetesClient resolve() {
-        return new KubernetesClientBuilder().build();
+        return Holder.CLIENT;
     }
+
     @Override
     public boolean supportsParameter(ParameterContext parameterContext,
                                      ExtensionContext extensionContext) throws ParameterResolutionException {
@@ -0,0 +1,310 @@
+package io.gingersnapproject.kubernetes;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.LocalPortForward;
+import io.gingersnapproject.benchmark.Benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically records the Prometheus metrics and the cgroup CPU and memory usage of the pods of a test namespace.
+ * <p>
+ * Samples are appended to {@code test-output/metrics/<test>-<namespace>.csv} with the columns
+ * {@code timestamp_ms,target,metric,labels,value}. The cgroup usage is read by executing a shell in the container and
+ * is recorded as the {@code cgroup_cpu_usage_seconds_total} and {@code cgroup_memory_usage_bytes} metrics, for every
+ * container whether or not it exposes metrics.
+ * <p>
+ * Configured with system properties:
+ * <ul>
+ *     <li>{@code gingersnap.metrics.interval}: the scrape interval in milliseconds, 0 disables scraping</li>
+ *     <li>{@code gingersnap.metrics.filter}: a regular expression matching the names of the metrics to record</li>
+ *     <li>{@code gingersnap.metrics.targets}: comma separated {@code target=pod-name:port/path} entries of the
+ *     Prometheus endpoints, where {@code pod-name} is the {@code app.kubernetes.io/name} label of the pod. Only the
+ *     cache is scraped by default: the containers of a pod share its network namespace and the db-syncer does not
+ *     serve its metrics on a port of its own</li>
+ *     <li>{@code gingersnap.metrics.containers}: comma separated {@code target=pod-name/container} entries of the
+ *     containers whose cgroup usage is recorded, the cache and the db-syncer by default</li>
+ * </ul>
+ * A target that cannot be reached, e.g. because its pod is not ready yet, is looked up again on the next scrape.
+ */
+public class MetricsScraper implements AutoCloseable {
+
+    public static final Duration INTERVAL = Duration.ofMillis(Long.getLong("gingersnap.metrics.interval", 5000));
+    static final Pattern FILTER = Pattern.compile(System.getProperty("gingersnap.metrics.filter", ".*"));
+    static final List<Target> TARGETS = Arrays.stream(System.getProperty("gingersnap.metrics.targets",
+                    "cache=infinispan:8080/q/metrics").split(","))
+            .map(String::trim)
+            .map(Target::parse)
+            .collect(Collectors.toList());
+    static final List<Container> CONTAINERS = Arrays.stream(System.getProperty("gingersnap.metrics.containers",
+                    "cache=infinispan/cache-manager,db-syncer=infinispan/db-syncer").split(","))
+            .map(String::trim)
+            .map(Container::parse)
+            .collect(Collectors.toList());
+
+    // Set once executing a command in a pod was forbidden, so that the cgroup usage is no longer read
+    static final AtomicBoolean EXEC_FORBIDDEN = new AtomicBoolean();
+    static final String CGROUP_USAGE = "if [ -f /sys/fs/cgroup/cpu.stat ]; then " +
+            "echo $(grep usage_usec /sys/fs/cgroup/cpu.stat | cut -d' ' -f2) $(cat /sys/fs/cgroup/memory.current); else " +
+            "echo $(( $(cat /sys/fs/cgroup/cpuacct/cpuacct.usage) / 1000 )) $(cat /sys/fs/cgroup/memory/memory.usage_in_bytes); fi";
+
+    record Target(String name, String pod, int port, String path) {
+        static Target parse(String spec) {
+            var matcher = Pattern.compile("([^=]+)=([^:]+):(\\d+)(/.*)").matcher(spec);
+            if (!matcher.matches())
+                throw new IllegalArgumentException("Expected target=pod-name:port/path: " + spec);
+            return new Target(matcher.group(1), matcher.group(2), Integer.parseInt(matcher.group(3)), matcher.group(4));
+        }
+    }
+
+    record Container(String name, String pod, String container) {
+        static Container parse(String spec) {
+            var parts = spec.split("[=/]");
+            if (parts.length != 3)
+                throw new IllegalArgumentException("Expected target=pod-name/container: " + spec);
+            return new Container(parts[0], parts[1], parts[2]);
+        }
+    }
+
+    class Scrape {
+        final Target target;
+        URI uri;
+        LocalPortForward forward;
+        boolean failureLogged;
+
+        Scrape(Target target) {
+            this.target = target;
+        }
+
+        void run() {
+            try {
+                if (uri == null && !connect())
+                    return;
+                var timestamp = System.currentTimeMillis();
+                var rsp = http.send(HttpRequest.newBuilder(uri).timeout(interval).build(), HttpResponse.BodyHandlers.ofLines());
+                if (rsp.statusCode() == 200) {
+                    var lines = rsp.body().iterator();
+                    while (lines.hasNext())
+                        metric(timestamp, lines.next());
+                }
+                out.flush();
+            } catch (Exception e) {
+                if (e instanceof InterruptedException)
+                    Thread.currentThread().interrupt();
+                if (!failureLogged) {
+                    failureLogged = true;
+                    System.out.printf("Unable to scrape metrics of '%s' in namespace '%s': %s\n", target.name, namespace, e);
+                }
+                // The pod may have been replaced, look it up again on the next scrape
+                close();
+            }
+        }
+
+        /**
+         * Connects to the first ready pod, the other replicas of a CLUSTER deployment are not scraped.
+         *
+         * @return false if no pod is ready yet
+         */
+        boolean connect() {
+            var pods = Util.readyPods(k8s, namespace, target.pod);
+            if (pods.isEmpty())
+                return false;
+            var ready = pods.get(0);
+            if (Util.LOCAL_TEST_EXECUTION) {
+                forward = Util.forwardPort(k8s, ready, target.port, 0);
+                uri = URI.create(String.format("http://localhost:%d%s", forward.getLocalPort(), target.path));
+            } else {
+                uri = URI.create(String.format("http://%s:%d%s", ready.getStatus().getPodIP(), target.port, target.path));
+            }
+            return true;
+        }
+
+        void metric(long timestamp, String line) throws IOException {
+            // name{labels} value [timestamp], label values may contain spaces
+            if (line.isEmpty() || line.startsWith("#"))
+                return;
+            var labelsEnd = line.lastIndexOf('}');
+            var nameEnd = labelsEnd < 0 ? line.indexOf(' ') : line.indexOf('{');
+            if (nameEnd < 0)
+                return;
+            var name = line.substring(0, nameEnd);
+            if (!FILTER.matcher(name).matches())
+                return;
+            var labels = labelsEnd < 0 ? "" : line.substring(nameEnd + 1, labelsEnd);
+            var value = line.substring(labelsEnd < 0 ? nameEnd : labelsEnd + 1).trim().split(" ")[0];
+            write(timestamp, target.name, name, labels, value);
+        }
+
+        void close() {
+            uri = null;
+            try {
+                if (forward != null) forward.close();
+            } catch (IOException e) {
+                System.out.printf("Unable to close port forward of '%s': %s\n", target.name, e);
+            }
+            forward = null;
+        }
+    }
+
+    /**
+     * Samples the cgroup usage of a container of the first ready pod, like the metrics of a {@link Target}.
+     */
+    class Sample {
+        final Container container;
+        String pod;
+        boolean failureLogged;
+
+        Sample(Container container) {
+            this.container = container;
+        }
+
+        void run() {
+            try {
+                if (pod == null) {
+                    var pods = Util.readyPods(k8s, namespace, container.pod);
+                    if (pods.isEmpty())
+                        return;
+                    pod = pods.get(0).getMetadata().getName();
+                }
+                var timestamp = System.currentTimeMillis();
+                var usage = cgroupUsageIfAllowed(k8s, namespace, pod, container.container, interval);
+                if (usage.isEmpty())
+                    return;
+                write(timestamp, container.name, "cgroup_cpu_usage_seconds_total", "",
+                        Double.toString(usage.get().cpuSeconds()));
+                write(timestamp, container.name, "cgroup_memory_usage_bytes", "",
+                        Long.toString(usage.get().memoryBytes()));
+                out.flush();
+            } catch (Exception e) {
+                if (e instanceof InterruptedException)
+                    Thread.currentThread().interrupt();
+                if (!failureLogged) {
+                    failureLogged = true;
+                    System.out.printf("Unable to sample the cgroup usage of '%s' in namespace '%s': %s\n",
+                            container.name, namespace, e);
+                }
+                // The pod may have been replaced, look it up again on the next sample
+                pod = null;
+            }
+        }
+    }
+
+    /**
+     * @param cpuSeconds  the CPU time consumed by the container since it started
+     * @param memoryBytes the memory currently charged to the container, including the page cache
+     */
+    public record CgroupUsage(double cpuSeconds, long memoryBytes) {
+    }
+
+    public static CgroupUsage cgroupUsage(KubernetesClient k8s, String namespace, String pod, String container,
+                                          Duration timeout) throws Exception {
+        var output = new ByteArrayOutputStream();
+        try (var exec = k8s.pods()
+                .inNamespace(namespace)
+                .withName(pod)
+                .inContainer(container)
+                .writingOutput(output)
+                .exec("sh", "-c", CGROUP_USAGE)) {
+            exec.exitCode().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        var usage = output.toString(StandardCharsets.UTF_8).trim().split("\\s+");
+        if (usage.length != 2)
+            throw new IllegalStateException("Unexpected cgroup usage '" + output + "'");
+        return new CgroupUsage(Long.parseLong(usage[0]) / 1e6, Long.parseLong(usage[1]));
+    }
+
+    /**
+     * Like {@link #cgroupUsage}, without failing when the role of the tests is not allowed to execute commands in pods,
+     * which is reported once.
+     *
+     * @return the usage, or empty if it cannot be read for lack of permissions
+     */
+    public static Optional<CgroupUsage> cgroupUsageIfAllowed(KubernetesClient k8s, String namespace, String pod,
+                                                             String container, Duration timeout) throws Exception {
+        if (EXEC_FORBIDDEN.get())
+            return Optional.empty();
+        try {
+            return Optional.of(cgroupUsage(k8s, namespace, pod, container, timeout));
+        } catch (Exception e) {
+            if (!Util.isForbidden(e))
+                throw e;
+            if (EXEC_FORBIDDEN.compareAndSet(false, true))
+                System.out.printf("Not allowed to execute commands in pods, the cgroup usage is not recorded: %s\n", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return a scraper of the namespace, or {@code null} if scraping is disabled
+     */
+    public static MetricsScraper start(KubernetesClient k8s, String namespace, String test) {
+        if (INTERVAL.isZero())
+            return null;
+        return new MetricsScraper(k8s, namespace, Benchmarks.OUTPUT_DIR.resolveSibling("metrics").resolve(test + "-" + namespace + ".csv"), INTERVAL);
+    }
+
+    final KubernetesClient k8s;
+    final String namespace;
+    final Duration interval;
+    final Path path;
+    final Writer out;
+    final HttpClient http = HttpClient.newHttpClient();
+    final List<Scrape> scrapes = new ArrayList<>();
+    final List<Sample> samples = new ArrayList<>();
+    final ScheduledExecutorService scheduler;
+
+    MetricsScraper(KubernetesClient k8s, String namespace, Path path, Duration interval) {
+        this.k8s = k8s;
+        this.namespace = namespace;
+        this.interval = interval;
+        this.path = path;
+        try {
+            Files.createDirectories(path.getParent());
+            this.out = Files.newBufferedWriter(path);
+            out.write("timestamp_ms,target,metric,labels,value\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        TARGETS.forEach(target -> scrapes.add(new Scrape(target)));
+        CONTAINERS.forEach(container -> samples.add(new Sample(container)));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Benchmarks.threadFactory("metrics-" + namespace));
+        scheduler.scheduleWithFixedDelay(() -> {
+            scrapes.forEach(Scrape::run);
+            samples.forEach(Sample::run);
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void write(long timestamp, String target, String metric, String labels, String value) throws IOException {
+        out.write(String.format("%d,%s,%s,\"%s\",%s\n", timestamp, target, metric, labels.replace("\"", "\"\""), value));
+    }
+
+    @Override
+    public void close() throws Exception {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(interval.toMillis(), TimeUnit.MILLISECONDS);
+        scrapes.forEach(Scrape::close);
+        out.close();
+        System.out.printf("Metrics written to '%s'\n", path);
+    }
+}
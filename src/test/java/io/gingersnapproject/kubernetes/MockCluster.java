@@ -0,0 +1,255 @@
+package io.gingersnapproject.kubernetes;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Namespace;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import io.gingersnap_project.v1alpha1.Cache;
+import io.gingersnap_project.v1alpha1.CacheStatus;
+import io.gingersnap_project.v1alpha1.EagerCacheRule;
+import io.gingersnap_project.v1alpha1.EagerCacheRuleStatus;
+import io.gingersnap_project.v1alpha1.LazyCacheRule;
+import io.gingersnap_project.v1alpha1.LazyCacheRuleStatus;
+import io.gingersnapproject.benchmark.Benchmarks;
+import io.gingersnapproject.gingersnap.StubGingersnapServer;
+import okhttp3.mockwebserver.MockWebServer;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An in-process stand-in for a Kubernetes cluster running the Gingersnap operator, so that load generators, waits and
+ * reporters can be developed, calibrated and tested for their own overhead without a cluster.
+ * <p>
+ * Resources are stored by the fabric8 mock server in CRUD mode. A simulated operator marks every {@code Cache} and
+ * rule Ready once {@link Options#readyDelay()} elapsed, and serves every {@code Cache} from its own
+ * {@link StubGingersnapServer}, in which a rule is defined once it is Ready and which responds after
+ * {@link Options#latency()} plus up to {@link Options#jitter()}. Nothing else is simulated: there are no pods, so
+ * port forwarding, exec and waits on pods are not supported.
+ * <p>
+ * Enabled for all the tests with {@code -Dgingersnap.mock.enabled=true}, in which case
+ * {@link KubernetesClientResolver} resolves the client of a shared instance, configured with
+ * {@code gingersnap.mock.ready-delay}, {@code gingersnap.mock.latency} and {@code gingersnap.mock.jitter} in
+ * milliseconds.
+ */
+public class MockCluster implements Closeable {
+
+    public static final boolean ENABLED = Boolean.getBoolean("gingersnap.mock.enabled");
+    // Held, so that the level is not lost when the logger is garbage collected
+    static final Logger MOCK_WEB_SERVER_LOGGER = Logger.getLogger(MockWebServer.class.getName());
+
+    static {
+        // Every request is logged otherwise
+        MOCK_WEB_SERVER_LOGGER.setLevel(Level.WARNING);
+    }
+
+    /**
+     * @param readyDelay the time between the creation of a resource and its Ready condition
+     * @param latency    the minimum latency of the responses of the stub Gingersnap servers
+     * @param jitter     the maximum random latency added to {@code latency}
+     */
+    public record Options(Duration readyDelay, Duration latency, Duration jitter) {
+        public static final Options DEFAULT = new Options(Duration.ZERO, Duration.ZERO, Duration.ZERO);
+
+        public static Options fromProperties() {
+            return new Options(
+                    Duration.ofMillis(Long.getLong("gingersnap.mock.ready-delay", 0)),
+                    Duration.ofMillis(Long.getLong("gingersnap.mock.latency", 0)),
+                    Duration.ofMillis(Long.getLong("gingersnap.mock.jitter", 0))
+            );
+        }
+    }
+
+    private static class Holder {
+        static final MockCluster INSTANCE = start(Options.fromProperties());
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(INSTANCE::close));
+        }
+    }
+
+    /**
+     * @return the instance shared by the tests when {@link #ENABLED}
+     */
+    public static MockCluster instance() {
+        return Holder.INSTANCE;
+    }
+
+    public static MockCluster start(Options options) {
+        var server = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(),
+                new KubernetesCrudDispatcher(List.of()), false);
+        server.init();
+        return new MockCluster(server, options);
+    }
+
+    final KubernetesMockServer server;
+    final KubernetesClient client;
+    final Options options;
+    // Keyed by namespace/name of the Cache
+    final Map<String, StubGingersnapServer> caches = new ConcurrentHashMap<>();
+    final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(Benchmarks.threadFactory("mock-operator"));
+    final List<SharedIndexInformer<?>> informers = new ArrayList<>();
+
+    private MockCluster(KubernetesMockServer server, Options options) {
+        this.server = server;
+        this.options = options;
+        for (var type : List.of(Cache.class, EagerCacheRule.class, LazyCacheRule.class))
+            server.expectCustomResource(CustomResourceDefinitionContext.fromCustomResourceType(type));
+        this.client = server.createClient();
+
+        informers.add(client.resources(Cache.class).inAnyNamespace().inform(MockCluster.<Cache>handler(this::reconcile, cache ->
+                close(caches.remove(key(cache.getMetadata().getNamespace(), cache.getMetadata().getName()))))));
+        informers.add(client.resources(EagerCacheRule.class).inAnyNamespace().inform(MockCluster.<EagerCacheRule>handler(this::reconcile, rule ->
+                removeRule(rule, rule.getSpec().getCacheRef().getNamespace(), rule.getSpec().getCacheRef().getName()))));
+        informers.add(client.resources(LazyCacheRule.class).inAnyNamespace().inform(MockCluster.<LazyCacheRule>handler(this::reconcile, rule ->
+                removeRule(rule, rule.getSpec().getCacheRef().getNamespace(), rule.getSpec().getCacheRef().getName()))));
+        // Deleting a namespace does not delete its resources in the mock server
+        informers.add(client.namespaces().inform(handler(namespace -> {
+        }, this::deleted)));
+    }
+
+    public KubernetesClient client() {
+        return client;
+    }
+
+    /**
+     * @return the server of the Ready cache
+     */
+    public StubGingersnapServer gingersnap(Cache cache) {
+        var server = caches.get(key(cache.getMetadata().getNamespace(), cache.getMetadata().getName()));
+        if (server == null)
+            throw new IllegalStateException("Cache " + cache.getMetadata().getName() + " is not Ready");
+        return server;
+    }
+
+    private void reconcile(Cache cache) {
+        var meta = cache.getMetadata();
+        afterReadyDelay(() -> {
+            server(meta.getNamespace(), meta.getName());
+            client.resources(Cache.class).inNamespace(meta.getNamespace()).withName(meta.getName()).editStatus(c -> {
+                var condition = new io.gingersnap_project.v1alpha1.cachestatus.Conditions();
+                condition.setType(io.gingersnap_project.v1alpha1.cachestatus.Conditions.Type.READY);
+                condition.setStatus(io.gingersnap_project.v1alpha1.cachestatus.Conditions.Status.TRUE);
+                c.setStatus(new CacheStatus());
+                c.getStatus().setConditions(List.of(condition));
+                return c;
+            });
+        });
+    }
+
+    private void reconcile(EagerCacheRule rule) {
+        var meta = rule.getMetadata();
+        var cacheRef = rule.getSpec().getCacheRef();
+        afterReadyDelay(() -> {
+            server(cacheRef.getNamespace() == null ? meta.getNamespace() : cacheRef.getNamespace(), cacheRef.getName()).rule(meta.getName());
+            client.resources(EagerCacheRule.class).inNamespace(meta.getNamespace()).withName(meta.getName()).editStatus(r -> {
+                var condition = new io.gingersnap_project.v1alpha1.eagercacherulestatus.Conditions();
+                condition.setType(io.gingersnap_project.v1alpha1.eagercacherulestatus.Conditions.Type.READY);
+                condition.setStatus(io.gingersnap_project.v1alpha1.eagercacherulestatus.Conditions.Status.TRUE);
+                r.setStatus(new EagerCacheRuleStatus());
+                r.getStatus().setConditions(List.of(condition));
+                return r;
+            });
+        });
+    }
+
+    private void reconcile(LazyCacheRule rule) {
+        var meta = rule.getMetadata();
+        var cacheRef = rule.getSpec().getCacheRef();
+        afterReadyDelay(() -> {
+            server(cacheRef.getNamespace() == null ? meta.getNamespace() : cacheRef.getNamespace(), cacheRef.getName()).rule(meta.getName());
+            client.resources(LazyCacheRule.class).inNamespace(meta.getNamespace()).withName(meta.getName()).editStatus(r -> {
+                var condition = new io.gingersnap_project.v1alpha1.lazycacherulestatus.Conditions();
+                condition.setType(io.gingersnap_project.v1alpha1.lazycacherulestatus.Conditions.Type.READY);
+                condition.setStatus(io.gingersnap_project.v1alpha1.lazycacherulestatus.Conditions.Status.TRUE);
+                r.setStatus(new LazyCacheRuleStatus());
+                r.getStatus().setConditions(List.of(condition));
+                return r;
+            });
+        });
+    }
+
+    private void removeRule(HasMetadata rule, String cacheNamespace, String cacheName) {
+        var server = caches.get(key(cacheNamespace == null ? rule.getMetadata().getNamespace() : cacheNamespace, cacheName));
+        if (server != null)
+            server.removeRule(rule.getMetadata().getName());
+    }
+
+    private void deleted(Namespace namespace) {
+        var prefix = key(namespace.getMetadata().getName(), "");
+        caches.keySet().removeIf(key -> {
+            if (!key.startsWith(prefix))
+                return false;
+            close(caches.get(key));
+            return true;
+        });
+    }
+
+    private StubGingersnapServer server(String namespace, String cache) {
+        return caches.computeIfAbsent(key(namespace, cache), k -> StubGingersnapServer.start()
+                .latency(options.latency(), options.jitter()));
+    }
+
+    private void afterReadyDelay(Runnable task) {
+        scheduler.schedule(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // The resource was deleted before it became Ready
+                System.out.printf("Mock operator failed to reconcile: %s\n", e);
+            }
+        }, options.readyDelay().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static String key(String namespace, String name) {
+        return namespace + "/" + name;
+    }
+
+    private static void close(StubGingersnapServer server) {
+        if (server != null) server.close();
+    }
+
+    private static <T> ResourceEventHandler<T> handler(Consumer<T> added, Consumer<T> deleted) {
+        return new ResourceEventHandler<>() {
+            @Override
+            public void onAdd(T obj) {
+                added.accept(obj);
+            }
+
+            @Override
+            public void onUpdate(T oldObj, T newObj) {
+            }
+
+            @Override
+            public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+                deleted.accept(obj);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        informers.forEach(SharedIndexInformer::close);
+        scheduler.shutdownNow();
+        caches.values().forEach(StubGingersnapServer::close);
+        caches.clear();
+        client.close();
+        server.destroy();
+    }
+}
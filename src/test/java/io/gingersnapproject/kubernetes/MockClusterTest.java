@@ -0,0 +1,63 @@
+package io.gingersnapproject.kubernetes;
+
+import io.gingersnap_project.v1alpha1.cachespec.DataSource;
+import io.gingersnapproject.gingersnap.GingersnapClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.gingersnapproject.kubernetes.Util.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class MockClusterTest {
+
+    static final Duration LATENCY = Duration.ofMillis(20);
+    static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    MockCluster cluster;
+
+    @BeforeAll
+    public void beforeAll() {
+        cluster = MockCluster.start(new MockCluster.Options(Duration.ofMillis(100), LATENCY, Duration.ZERO));
+    }
+
+    @AfterAll
+    public void afterAll() {
+        if (cluster != null) cluster.close();
+    }
+
+    @Test
+    public void testResourcesBecomeReady() {
+        var k8s = cluster.client();
+        var namespace = uniqueNamespace("mock");
+        createNamespace(k8s, namespace);
+
+        var cache = k8s.resource(cache(DataSource.DbType.MYSQL_8, "mock-cache", "secret")).inNamespace(namespace).create();
+        cache = Waits.awaitReady(k8s, cache, TIMEOUT);
+        var rule = k8s.resource(eagerCacheRule("mock-rule", cache, "gingersnap.customer",
+                key -> key.setKeyColumns(Collections.singletonList("id")),
+                value -> value.setValueColumns(List.of("fullname")))).inNamespace(namespace).create();
+        Waits.awaitReady(k8s, rule, TIMEOUT);
+
+        var server = cluster.gingersnap(cache);
+        var gingersnap = GingersnapClient.of(server.uri());
+        assertThat(gingersnap.isRuleDefined("mock-rule"), is(true));
+
+        server.put("mock-rule", "1", "{\"fullname\":\"Alice\"}");
+        var start = System.nanoTime();
+        assertThat(gingersnap.get("mock-rule", "1"), is("{\"fullname\":\"Alice\"}"));
+        assertThat(System.nanoTime() - start, greaterThanOrEqualTo(LATENCY.toNanos()));
+
+        k8s.resource(rule).delete();
+        eventually(() -> !gingersnap.isRuleDefined("mock-rule"), 10, TimeUnit.SECONDS);
+        k8s.namespaces().withName(namespace).delete();
+    }
+}
@@ -0,0 +1,72 @@
+package io.gingersnapproject.kubernetes;
+
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.Event;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodCondition;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * The startup milestones of a pod, taken from its status and its events as recorded by the API server. Like all
+ * Kubernetes timestamps, except the event times of some events, they have a resolution of one second.
+ *
+ * @param pulled       the time the last image was pulled, or the time the pod was scheduled if no image was pulled
+ * @param started      the time the last container started running
+ * @param imagesCached whether all the images were already present on the node
+ */
+public record PodTimeline(String pod, String node, Instant created, Instant scheduled, Instant pulled, Instant started,
+                          Instant ready, boolean imagesCached) {
+
+    public static PodTimeline of(KubernetesClient k8s, Pod pod) {
+        var meta = pod.getMetadata();
+        var scheduled = condition(pod, "PodScheduled");
+        var pulls = k8s.v1().events()
+                .inNamespace(meta.getNamespace())
+                .withField("involvedObject.name", meta.getName())
+                .list()
+                .getItems()
+                .stream()
+                .filter(event -> "Pulled".equals(event.getReason()))
+                .collect(Collectors.toList());
+        var pulled = pulls.stream()
+                .map(PodTimeline::time)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(scheduled);
+        var started = pod.getStatus().getContainerStatuses().stream()
+                .map(ContainerStatus::getState)
+                .filter(state -> state.getRunning() != null)
+                .map(state -> instant(state.getRunning().getStartedAt()))
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        // The kubelet reports images present on the node as pulled as well
+        var imagesCached = pulls.stream().allMatch(event -> event.getMessage() != null && event.getMessage().contains("already present"));
+        return new PodTimeline(meta.getName(), pod.getSpec().getNodeName(), instant(meta.getCreationTimestamp()),
+                scheduled, pulled, started, condition(pod, "Ready"), imagesCached);
+    }
+
+    private static Instant condition(Pod pod, String type) {
+        return pod.getStatus().getConditions().stream()
+                .filter(condition -> type.equals(condition.getType()) && "True".equals(condition.getStatus()))
+                .map(PodCondition::getLastTransitionTime)
+                .map(PodTimeline::instant)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static Instant time(Event event) {
+        // Only set by the components reporting with the events.k8s.io API, with a resolution of a microsecond
+        if (event.getEventTime() != null && event.getEventTime().getTime() != null)
+            return instant(event.getEventTime().getTime());
+        return instant(event.getLastTimestamp());
+    }
+
+    static Instant instant(String timestamp) {
+        return timestamp == null ? null : Instant.parse(timestamp);
+    }
+}
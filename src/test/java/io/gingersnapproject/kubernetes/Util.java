@@ -1,11 +1,11 @@
 package io.gingersnapproject.kubernetes;
 
-import io.fabric8.kubernetes.api.model.ContainerStatus;
 import io.fabric8.kubernetes.api.model.NamespaceBuilder;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.dsl.Gettable;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.LocalPortForward;
 import io.gingersnap_project.v1alpha1.*;
 import io.gingersnap_project.v1alpha1.cachespec.DataSource;
 import io.gingersnap_project.v1alpha1.cachespec.datasource.SecretRef;
@@ -13,8 +13,11 @@ import io.gingersnap_project.v1alpha1.eagercacherulespec.Key;
 import io.gingersnap_project.v1alpha1.eagercacherulespec.Value;
 import io.gingersnap_project.v1alpha1.lazycacherulespec.CacheRef;
 
-import java.io.Closeable;
-import java.util.Objects;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
@@ -34,34 +37,76 @@ public class Util {
     }
 
     public static void waitForNamespaceDeletion(KubernetesClient k8s, String namespace) {
-        k8s.namespaces().withName(namespace).waitUntilCondition(Objects::isNull, 4, TimeUnit.MINUTES);
-    }
-
-    public static Closeable forwardPort(KubernetesClient k8s, String namespace, String name, int containerPort, int localPort) {
-        if (LOCAL_TEST_EXECUTION) {
-            var pods = k8s.pods()
-                    .inNamespace(namespace)
-                    .withLabel("app.kubernetes.io/name", name)
-                    .resources()
-                    .map(Gettable::get)
-                    .filter(p -> {
-                        return p.getStatus().getContainerStatuses().stream().allMatch(ContainerStatus::getReady);
-                    })
-                    .collect(Collectors.toList());
-
-            assertThat(
-                    pods.stream().map(p -> p.getMetadata().getName()).collect(Collectors.joining(",")),
-                    pods,
-                    hasSize(1)
-            );
-            var podName = pods.get(0).getMetadata().getName();
-            System.out.printf("Forwarding port %d:%d for pod '%s'\n", containerPort, localPort, pods.get(0).getMetadata().getName());
-            return k8s.pods()
-                    .inNamespace(namespace)
-                    .withName(podName)
-                    .portForward(containerPort, localPort);
+        Waits.awaitNamespaceDeleted(k8s, namespace, Duration.ofMinutes(4));
+    }
+
+    /**
+     * Forwards {@code containerPort} of the single ready pod labelled with {@code name} to {@code localPort}, or to an
+     * ephemeral local port if {@code localPort} is 0 so that concurrent tests do not collide. Only required when
+     * {@link #LOCAL_TEST_EXECUTION}.
+     */
+    public static LocalPortForward forwardPort(KubernetesClient k8s, String namespace, String name, int containerPort, int localPort) {
+        return forwardPort(k8s, readyPod(k8s, namespace, name), containerPort, localPort);
+    }
+
+    public static LocalPortForward forwardPort(KubernetesClient k8s, Pod pod, int containerPort, int localPort) {
+        var meta = pod.getMetadata();
+        var resource = k8s.pods()
+                .inNamespace(meta.getNamespace())
+                .withName(meta.getName());
+        var forward = localPort == 0 ? resource.portForward(containerPort) : resource.portForward(containerPort, localPort);
+        System.out.printf("Forwarding port %d:%d for pod '%s/%s'\n", containerPort, forward.getLocalPort(), meta.getNamespace(), meta.getName());
+        return forward;
+    }
+
+    /**
+     * @return whether {@code t} or one of its causes is the API server refusing a request for lack of permissions
+     */
+    public static boolean isForbidden(Throwable t) {
+        for (; t != null; t = t.getCause()) {
+            if (t instanceof KubernetesClientException e && e.getCode() == HttpURLConnection.HTTP_FORBIDDEN)
+                return true;
         }
-        return () -> {};
+        return false;
+    }
+
+    /**
+     * @return the single ready pod labelled with {@code name}
+     */
+    public static Pod readyPod(KubernetesClient k8s, String namespace, String name) {
+        var pods = readyPods(k8s, namespace, name);
+        assertThat(
+                pods.stream().map(p -> p.getMetadata().getName()).collect(Collectors.joining(",")),
+                pods,
+                hasSize(1)
+        );
+        return pods.get(0);
+    }
+
+    /**
+     * @return the ready pods labelled with {@code name}, ordered by name
+     */
+    public static List<Pod> readyPods(KubernetesClient k8s, String namespace, String name) {
+        // A single LIST request rather than one GET per pod
+        return k8s.pods()
+                .inNamespace(namespace)
+                .withLabel("app.kubernetes.io/name", name)
+                .list()
+                .getItems()
+                .stream()
+                .filter(Waits::isReady)
+                .sorted(Comparator.comparing(p -> p.getMetadata().getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return a valid namespace name starting with {@code prefix} and ending with a random suffix
+     */
+    public static String uniqueNamespace(String prefix) {
+        var name = prefix.toLowerCase().replaceAll("[^a-z0-9-]", "-");
+        if (name.length() > 50)
+            name = name.substring(0, 50);
+        return String.format("%s-%06x", name, ThreadLocalRandom.current().nextInt(1 << 24));
     }
 
     public static void createNamespace(KubernetesClient k8s, String namespace) {
@@ -156,6 +201,8 @@ public class Util {
 
     public static void eventually(Supplier<String> messageSupplier, Supplier<Boolean> condition, long timeout,
                                   TimeUnit timeUnit) {
+        var start = System.nanoTime();
+        var satisfied = false;
         try {
             long timeoutNanos = timeUnit.toNanos(timeout);
             // We want the sleep time to increase in arithmetic progression
@@ -166,16 +213,40 @@ public class Util {
             long sleepNanos = initialSleepNanos;
             long expectedEndTime = System.nanoTime() + timeoutNanos;
             while (expectedEndTime - System.nanoTime() > 0) {
-                if (condition.get())
+                if (satisfied = condition.get())
                     return;
                 LockSupport.parkNanos(sleepNanos);
                 sleepNanos += initialSleepNanos;
             }
-            if (!condition.get()) {
+            if (!(satisfied = condition.get())) {
                 fail(messageSupplier.get());
             }
         } catch (Exception e) {
             throw new RuntimeException("Unexpected!", e);
+        } finally {
+            Waits.record("eventually at " + caller(), start, satisfied);
+        }
+    }
+
+    private static String caller() {
+        return StackWalker.getInstance()
+                .walk(frames -> frames
+                        .filter(f -> !f.getClassName().equals(Util.class.getName()))
+                        .findFirst()
+                        .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + ":" + f.getLineNumber())
+                        .orElse("unknown"));
+    }
+
+    /**
+     * Evaluates the condition at a fixed interval, unlike {@link #eventually(Supplier)} whose interval grows, so that
+     * the time at which the condition became true is known with a precision of {@code interval}.
+     */
+    public static void pollUntil(Supplier<Boolean> condition, Duration interval, Duration timeout) {
+        long expectedEndTime = System.nanoTime() + timeout.toNanos();
+        while (!condition.get()) {
+            if (System.nanoTime() - expectedEndTime > 0)
+                fail("Condition is still false after " + timeout);
+            LockSupport.parkNanos(interval.toNanos());
         }
     }
 
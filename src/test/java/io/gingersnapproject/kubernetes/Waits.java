@@ -0,0 +1,151 @@
+package io.gingersnapproject.kubernetes;
+
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.Informable;
+import io.gingersnap_project.v1alpha1.Cache;
+import io.gingersnap_project.v1alpha1.EagerCacheRule;
+import io.gingersnap_project.v1alpha1.LazyCacheRule;
+import io.gingersnapproject.benchmark.Benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Event driven waits on Kubernetes resources. Every wait is backed by an informer, so the state of the resource is
+ * pushed by the API server instead of being polled, and its duration is appended to {@link #TIMINGS} so that the time
+ * spent waiting can be attributed.
+ */
+public class Waits {
+
+    public static final Path TIMINGS = Benchmarks.OUTPUT_DIR.resolve("waits.csv");
+
+    private Waits() {
+    }
+
+    public static Cache awaitReady(KubernetesClient k8s, Cache cache, Duration timeout) {
+        return awaitResource("Cache " + name(cache) + " Ready", k8s.resource(cache), c -> {
+            if (c.getStatus() == null || c.getStatus().getConditions() == null)
+                return false;
+
+            return c.getStatus().getConditions().stream().anyMatch(condition ->
+                    condition.getType() == io.gingersnap_project.v1alpha1.cachestatus.Conditions.Type.READY &&
+                            condition.getStatus() == io.gingersnap_project.v1alpha1.cachestatus.Conditions.Status.TRUE);
+        }, timeout);
+    }
+
+    public static EagerCacheRule awaitReady(KubernetesClient k8s, EagerCacheRule rule, Duration timeout) {
+        return awaitResource("EagerCacheRule " + name(rule) + " Ready", k8s.resource(rule), Waits::isReady, timeout);
+    }
+
+    public static LazyCacheRule awaitReady(KubernetesClient k8s, LazyCacheRule rule, Duration timeout) {
+        return awaitResource("LazyCacheRule " + name(rule) + " Ready", k8s.resource(rule), Waits::isReady, timeout);
+    }
+
+    public static void awaitNamespaceDeleted(KubernetesClient k8s, String namespace, Duration timeout) {
+        await("Namespace " + namespace + " deleted", k8s.namespaces().withName(namespace), List::isEmpty, timeout);
+    }
+
+    /**
+     * Waits until {@code count} pods with the given label exist and all of their containers are ready.
+     */
+    public static List<Pod> awaitPodsReady(KubernetesClient k8s, String namespace, String label, String value, int count,
+                                           Duration timeout) {
+        return awaitPods(k8s, namespace, label, value, pods -> pods.size() == count && pods.stream().allMatch(Waits::isReady), timeout);
+    }
+
+    public static List<Pod> awaitPods(KubernetesClient k8s, String namespace, String label, String value,
+                                      Predicate<List<Pod>> condition, Duration timeout) {
+        return await(
+                String.format("Pods %s=%s in %s", label, value, namespace),
+                k8s.pods().inNamespace(namespace).withLabel(label, value),
+                condition,
+                timeout
+        );
+    }
+
+    public static boolean isReady(Pod pod) {
+        var status = pod.getStatus();
+        return status != null && status.getContainerStatuses() != null && !status.getContainerStatuses().isEmpty() &&
+                status.getContainerStatuses().stream().allMatch(ContainerStatus::getReady);
+    }
+
+    public static boolean isReady(EagerCacheRule rule) {
+        if (rule.getStatus() == null || rule.getStatus().getConditions() == null)
+            return false;
+
+        return rule.getStatus().getConditions().stream().anyMatch(condition ->
+                condition.getType() == io.gingersnap_project.v1alpha1.eagercacherulestatus.Conditions.Type.READY &&
+                        condition.getStatus() == io.gingersnap_project.v1alpha1.eagercacherulestatus.Conditions.Status.TRUE);
+    }
+
+    public static boolean isReady(LazyCacheRule rule) {
+        if (rule.getStatus() == null || rule.getStatus().getConditions() == null)
+            return false;
+
+        return rule.getStatus().getConditions().stream().anyMatch(condition ->
+                condition.getType() == io.gingersnap_project.v1alpha1.lazycacherulestatus.Conditions.Type.READY &&
+                        condition.getStatus() == io.gingersnap_project.v1alpha1.lazycacherulestatus.Conditions.Status.TRUE);
+    }
+
+    static <T extends HasMetadata> T awaitResource(String description, Informable<T> resource, Predicate<T> condition,
+                                                   Duration timeout) {
+        return await(description, resource, items -> !items.isEmpty() && condition.test(items.get(0)), timeout).get(0);
+    }
+
+    static <T> List<T> await(String description, Informable<T> informable, Predicate<List<T>> condition, Duration timeout) {
+        var start = System.nanoTime();
+        var future = informable.informOnCondition(condition);
+        var satisfied = false;
+        try {
+            var items = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            satisfied = true;
+            return items;
+        } catch (TimeoutException e) {
+            return fail(description + " not satisfied after " + timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            future.cancel(true);
+            record(description, start, satisfied);
+        }
+    }
+
+    /**
+     * Records the duration of a wait which started at {@code startNanos}.
+     */
+    public static synchronized void record(String description, long startNanos, boolean satisfied) {
+        var millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        System.out.printf("Waited %dms for %s%s\n", millis, description, satisfied ? "" : " (timed out)");
+        try {
+            Files.createDirectories(TIMINGS.getParent());
+            var line = String.format("%s,%s,%d,%b\n", Instant.now(), description.replace(',', ';'), millis, satisfied);
+            if (Files.notExists(TIMINGS))
+                line = "timestamp,wait,millis,satisfied\n" + line;
+            Files.writeString(TIMINGS, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String name(HasMetadata resource) {
+        return resource.getMetadata().getNamespace() + "/" + resource.getMetadata().getName();
+    }
+}
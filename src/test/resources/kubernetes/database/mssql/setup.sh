@@ -1,3 +1,3 @@
 #!/bin/bash
 set -e
-/opt/mssql-tools/bin/sqlcmd -S mssql.mssql.svc.cluster.local -U sa -P 'Password!42' -d master -i /init/setup.sql
+/opt/mssql-tools/bin/sqlcmd -S ${1:-mssql.mssql.svc.cluster.local} -U sa -P 'Password!42' -d master -i /init/setup.sql
@@ -28,6 +28,13 @@ go
 EXEC sys.sp_cdc_enable_db;
 go
 
+-- Capture large values of generated tables, changes to LOB columns are limited to 64KB by default
+EXEC sp_configure 'max text repl size', -1;
+go
+
+RECONFIGURE;
+go
+
 EXEC sys.sp_cdc_enable_table @source_schema = N'gingersnap', @source_name = N'customer', @role_name = NULL, @supports_net_changes = 0;
 go
 